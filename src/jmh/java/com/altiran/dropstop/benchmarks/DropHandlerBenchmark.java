@@ -0,0 +1,98 @@
+package com.altiran.dropstop.benchmarks;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import com.altiran.dropstop.DropStop;
+import com.altiran.dropstop.listeners.PlayerDropListener;
+import org.bukkit.Material;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the drop handler in each of its modes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DropHandlerBenchmark {
+    /**
+     * The configuration the handler runs with.
+     */
+    @Param({"DISABLED", "BLOCK_ALL", "ALLOWLIST_SMALL", "ALLOWLIST_LARGE"})
+    public String mode;
+
+    private ServerMock server;
+    private DropStop plugin;
+    private PlayerDropListener listener;
+    private PlayerDropItemEvent event;
+
+    /**
+     * Start the mock server and configure the plugin for the current mode.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        server = MockBukkit.mock();
+        plugin = MockBukkit.load(DropStop.class);
+        PlayerMock player = server.addPlayer();
+
+        List<String> allowlist = new ArrayList<>();
+        if ("ALLOWLIST_SMALL".equals(mode)) {
+            allowlist.add(Material.DIAMOND.name());
+            allowlist.add(Material.GOLD_BLOCK.name());
+        } else if ("ALLOWLIST_LARGE".equals(mode)) {
+            Arrays.stream(Material.values())
+                .filter(material -> material.isItem() && !material.isLegacy() && material != Material.DIRT)
+                .forEach(material -> allowlist.add(material.name()));
+        }
+
+        plugin.getConfig().set("disable-item-drops", !"DISABLED".equals(mode));
+        plugin.getConfig().set("warn-player-on-drop", false);
+        plugin.getConfig().set("item-allowlisting", !allowlist.isEmpty());
+        plugin.getConfig().set("item-allowlist", allowlist);
+        plugin.reloadPolicy();
+
+        listener = new PlayerDropListener(plugin);
+        ItemStack item = new ItemStack(Material.DIRT);
+        event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), item));
+    }
+
+    /**
+     * Stop the mock server.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    /**
+     * Process a single drop event.
+     */
+    @Benchmark
+    public boolean onPlayerItemDrop() {
+        event.setCancelled(false);
+        listener.onPlayerItemDrop(event);
+        return event.isCancelled();
+    }
+}
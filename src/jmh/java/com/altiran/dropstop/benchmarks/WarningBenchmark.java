@@ -0,0 +1,100 @@
+package com.altiran.dropstop.benchmarks;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import com.altiran.dropstop.DropStop;
+import com.altiran.dropstop.listeners.PlayerDropListener;
+import com.altiran.dropstop.message.WarningTemplate;
+import org.bukkit.Material;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the warning path of a blocked drop and the rendering of the warning message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WarningBenchmark {
+    /**
+     * Whether the player is still within the cooldown window, so no message is sent.
+     */
+    @Param({"true", "false"})
+    public boolean cooldownHit;
+
+    private ServerMock server;
+    private DropStop plugin;
+    private PlayerMock player;
+    private PlayerDropListener listener;
+    private PlayerDropItemEvent event;
+    private WarningTemplate template;
+
+    /**
+     * Start the mock server and enable warnings.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        server = MockBukkit.mock();
+        plugin = MockBukkit.load(DropStop.class);
+        player = server.addPlayer();
+
+        plugin.getConfig().set("disable-item-drops", true);
+        plugin.getConfig().set("warn-player-on-drop", true);
+        plugin.getConfig().set("warning-timeout", 3600);
+        plugin.reloadPolicy();
+
+        listener = new PlayerDropListener(plugin);
+        ItemStack item = new ItemStack(Material.DIRT);
+        event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), item));
+        template = WarningTemplate.compile("&6&lHey %player%, you are not allowed to drop that here.");
+    }
+
+    /**
+     * Stop the mock server.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    /**
+     * Process a blocked drop that sends a warning unless the cooldown is hit.
+     */
+    @Benchmark
+    public Object sendWarningMessage() {
+        if (!cooldownHit) {
+            plugin.resetPlayerMessageTimestamps();
+        }
+
+        event.setCancelled(false);
+        listener.onPlayerItemDrop(event);
+        return player.nextMessage();
+    }
+
+    /**
+     * Render the warning message for a player.
+     */
+    @Benchmark
+    public String formatChatMessage() {
+        return template.render(player.getName());
+    }
+}
@@ -1,27 +1,113 @@
 package com.altiran.dropstop;
 
+import com.altiran.dropstop.api.DropDecision;
+import com.altiran.dropstop.api.DropPredicates;
+import com.altiran.dropstop.api.DropStopApi;
+import com.altiran.dropstop.api.DropStopService;
+import com.altiran.dropstop.audit.AuditLog;
+import com.altiran.dropstop.audit.AuditSettings;
+import com.altiran.dropstop.chunk.ChunkItemCounter;
+import com.altiran.dropstop.chunk.RecentDrops;
+import com.altiran.dropstop.commands.DropStopCommand;
+import com.altiran.dropstop.config.ConfigWatcher;
+import com.altiran.dropstop.config.PolicyLoader;
+import com.altiran.dropstop.lag.LagMonitor;
+import com.altiran.dropstop.listeners.DropCompactionListener;
+import com.altiran.dropstop.listeners.FeatureListeners;
+import com.altiran.dropstop.listeners.ItemEntityListener;
+import com.altiran.dropstop.listeners.PlayerDropListener;
+import com.altiran.dropstop.listeners.PluginListener;
+import com.altiran.dropstop.listeners.SessionListener;
+import com.altiran.dropstop.message.LocaleCache;
+import com.altiran.dropstop.message.LocalizedWarnings;
+import com.altiran.dropstop.message.WarningQueue;
+import com.altiran.dropstop.message.WarningTemplate;
+import com.altiran.dropstop.metrics.DropMetrics;
+import com.altiran.dropstop.network.BungeeTransport;
+import com.altiran.dropstop.network.NetworkRole;
+import com.altiran.dropstop.network.PolicySync;
+import com.altiran.dropstop.network.PolicyTransport;
+import com.altiran.dropstop.network.PolicyTree;
+import com.altiran.dropstop.player.BypassCache;
+import com.altiran.dropstop.player.CooldownStore;
+import com.altiran.dropstop.player.PlayerStatsStore;
+import com.altiran.dropstop.player.RateLimiter;
+import com.altiran.dropstop.policy.DropPolicy;
+import com.altiran.dropstop.policy.DropRule;
+import com.altiran.dropstop.policy.ItemMatcher;
+import com.altiran.dropstop.scheduler.TaskScheduler;
+import com.altiran.dropstop.trace.DecisionTrace;
+import com.altiran.dropstop.trace.DecisionTracer;
+import com.altiran.dropstop.utils.ChunkKeys;
+import com.altiran.dropstop.utils.NumberUtils;
 import com.altiran.dropstop.utils.ProcessUtils;
 import io.papermc.lib.PaperLib;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.configuration.Configuration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
-import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import java.util.HashMap;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * The main class of the plugin.
  */
-public class DropStop extends JavaPlugin implements Listener {
-    private static final String MC_CHAR = String.valueOf((char) 167);
-    private static DropStop instance;
-    private final Map<String, Long> playerMessageTimestamps = new HashMap<>();
+public class DropStop extends JavaPlugin {
+    private static final long WARNING_BUFFER_NANOS = 500000000L; // 0.5s buffer
+    private static final long PURGE_PERIOD_TICKS = 1200L; // 1 minute
+    private static final long TICKS_PER_MINUTE = 1200L;
+    private static final long BYPASS_REFRESH_PERIOD_TICKS = 600L; // 30 seconds
+    private static final long CHUNK_RECONCILE_PERIOD_TICKS = 600L; // 30 seconds
+    private static final long PLAYER_STATS_FLUSH_PERIOD_TICKS = 1200L; // 1 minute
+    private static final int TRACE_CAPACITY = 1024;
+    private static volatile DropStop instance;
+    private final CooldownStore cooldowns = new CooldownStore();
+    private final BypassCache bypassCache = new BypassCache();
+    private final RateLimiter rateLimiter = new RateLimiter();
+    private final ChunkItemCounter chunkItems = new ChunkItemCounter();
+    private final RecentDrops recentDrops = new RecentDrops();
+    private final LocaleCache localeCache = new LocaleCache();
+    private final DropMetrics metrics = new DropMetrics();
+    private final DecisionTracer tracer = new DecisionTracer(TRACE_CAPACITY);
+    private final ThreadLocal<Location> scratchLocation = ThreadLocal.withInitial(() -> new Location(null, 0, 0, 0));
+    private final AtomicLong reloadGeneration = new AtomicLong();
+    private final AtomicLong networkGeneration = new AtomicLong();
+    private volatile DropPolicy policy;
+    private TaskScheduler scheduler;
+    private WarningQueue warningQueue;
+    private LagMonitor lagMonitor;
+    private FeatureListeners featureListeners;
+    private DropPredicates dropPredicates;
+    private ConfigWatcher configWatcher;
+    private volatile AuditLog auditLog;
+    private volatile PlayerStatsStore playerStats;
+    private TaskScheduler.Task playerStatsTask;
+    private PolicySync policySync;
+    private volatile Map<String, Object> localSettings; // The settings of the last loaded file that are never taken from the network
+    private Supplier<PolicyTransport> policyTransport;
+    private TaskScheduler.Task statsTask;
+    private int statsLogInterval;
     private boolean unitTestEnv = false;
     private boolean isDisabled = false;
 
@@ -65,16 +151,43 @@ public class DropStop extends JavaPlugin implements Listener {
         long timestamp = System.nanoTime();
         Logger logger = getLogger();
 
+        scheduler = TaskScheduler.create(this);
+        warningQueue = new WarningQueue(scheduler);
+        lagMonitor = new LagMonitor(getServer(), scheduler, logger);
+        dropPredicates = new DropPredicates(logger);
+        if (policyTransport == null) {
+            policyTransport = () -> new BungeeTransport(this, scheduler);
+        }
         if (!unitTestEnv) {
-            if (PaperLib.isPaper()) {
+            if (TaskScheduler.isFolia()) {
+                logger.log(Level.INFO, "Folia was detected! Tasks will run on the region schedulers.");
+            } else if (PaperLib.isPaper()) {
                 logger.log(Level.INFO, "PaperMC was detected! Performance optimizations have been applied.");
             } else {
                 PaperLib.suggestPaper(this);
             }
         }
 
+        featureListeners = new FeatureListeners(this);
+        featureListeners.add(new PlayerDropListener(this), current -> current.isDropChecked() || !dropPredicates.isEmpty() || tracer.isActive());
+        featureListeners.add(new ItemEntityListener(this), current -> current.getChunkItemLimit() > 0);
+        featureListeners.add(new DropCompactionListener(this), DropPolicy::isDropCompaction);
+
         saveDefaultConfig();
-        getServer().getPluginManager().registerEvents(this, this);
+        reloadPolicy();
+        getServer().getPluginManager().registerEvents(new SessionListener(this), this);
+        getServer().getPluginManager().registerEvents(new PluginListener(this), this);
+        getServer().getServicesManager().register(DropStopApi.class, new DropStopService(this), this, ServicePriority.Normal);
+        scheduler.runAsyncTimer(this::purgeExpiredEntries, PURGE_PERIOD_TICKS, PURGE_PERIOD_TICKS);
+        scheduler.runGlobalTimer(this::refreshBypassCache, 1L, BYPASS_REFRESH_PERIOD_TICKS);
+        scheduler.runAsyncTimer(this::reconcileChunkItems, CHUNK_RECONCILE_PERIOD_TICKS, CHUNK_RECONCILE_PERIOD_TICKS);
+
+        PluginCommand command = getCommand("dropstop");
+        if (command != null) {
+            DropStopCommand executor = new DropStopCommand(this);
+            command.setExecutor(executor);
+            command.setTabCompleter(executor);
+        }
 
         logger.log(Level.INFO, "DropStop initialized in {0}. No players can drop items!", ProcessUtils.getTimeTaken(timestamp));
     }
@@ -89,6 +202,15 @@ public class DropStop extends JavaPlugin implements Listener {
         }
 
         logger().info("Stopping DropStop...");
+        stopConfigWatcher();
+        configureAuditLog(AuditSettings.DISABLED);
+        configurePlayerStats(false);
+        configureNetwork(null);
+        lagMonitor.stop();
+        featureListeners.unregisterAll();
+        getServer().getServicesManager().unregisterAll(this);
+        scheduleStatsSummary(0);
+        scheduler.cancelAll();
         setInstance(null);
         isDisabled = true;
     }
@@ -103,63 +225,585 @@ public class DropStop extends JavaPlugin implements Listener {
     }
 
     /**
-     * Handles the event when a player tries to drop an item.
+     * Compile the currently loaded configuration and swap it in as the active drop policy.
+     */
+    public void reloadPolicy() {
+        reloadGeneration.incrementAndGet();
+        DropPolicy compiled = DropPolicy.compile(getConfig(), getLogger(), policy);
+        publishPolicy(compiled);
+        publishToNetwork(compiled, getConfig());
+    }
+
+    /**
+     * Read and compile the configuration file on an asynchronous thread, then swap it in on the main thread,
+     * or the global region on Folia.
+     *
+     * <p>An invalid configuration file is rejected and the active policy is kept. If several reloads
+     * overlap, only the most recent one is published.
      *
-     * @param e The event object.
-     */
-    @EventHandler
-    public final void onPlayerItemDrop(PlayerDropItemEvent e) {
-        if (getConfig().getBoolean("disable-item-drops", false)) {
-            if (getConfig().getBoolean("item-allowlisting", false)) {
-                if (!getConfig().getStringList("item-allowlist").contains(e.getItemDrop().getItemStack().getType().toString())) {
-                    cancelItemDrop(e);
+     * @param sender The sender to report the result to, or {@code null} to only log it.
+     */
+    public void reloadPolicyAsync(@Nullable CommandSender sender) {
+        long generation = reloadGeneration.incrementAndGet();
+        File file = new File(getDataFolder(), "config.yml");
+        Configuration defaults = getConfig().getDefaults();
+        DropPolicy previous = policy;
+
+        scheduler.runAsync(() -> {
+            try {
+                YamlConfiguration config = PolicyLoader.read(file, defaults);
+                DropPolicy compiled = DropPolicy.compile(config, getLogger(), previous);
+                scheduler.runGlobal(() -> {
+                    if (generation != reloadGeneration.get()) {
+                        return; // A newer reload has been requested in the meantime
+                    }
+
+                    publishPolicy(compiled);
+                    publishToNetwork(compiled, config);
+                    getLogger().info("The configuration has been reloaded.");
+                    if (sender != null) {
+                        sender.sendMessage("[DropStop] The configuration has been reloaded.");
+                    }
+                });
+            } catch (IOException | InvalidConfigurationException | RuntimeException ex) {
+                getLogger().log(Level.SEVERE, "Could not reload the configuration, keeping the current one.", ex);
+                if (sender != null) {
+                    scheduler.runGlobal(() -> sender.sendMessage("[DropStop] Could not reload the configuration: " + ex.getMessage()));
                 }
-            } else {
-                cancelItemDrop(e);
             }
+        });
+    }
+
+    private void publishPolicy(@Nonnull DropPolicy compiled) {
+        DropPolicy previous = policy;
+        policy = compiled;
+
+        boolean wasTracking = previous != null && previous.getChunkItemLimit() > 0;
+        if (compiled.getChunkItemLimit() > 0 && !wasTracking) {
+            countChunkItems();
+        } else if (compiled.getChunkItemLimit() == 0 && wasTracking) {
+            chunkItems.clear();
+        }
+
+        if (!compiled.isDropCompaction()) {
+            recentDrops.clear();
+        }
+
+        featureListeners.update(compiled);
+
+        if (compiled.isWatchConfigFile()) {
+            startConfigWatcher();
+        } else {
+            stopConfigWatcher();
+        }
+
+        configureAuditLog(compiled.getAuditSettings());
+        configurePlayerStats(compiled.isPlayerStats());
+        configureNetwork(compiled.getNetworkRole());
+        lagMonitor.configure(compiled.getLagSettings());
+
+        if (compiled.getStatsLogInterval() != statsLogInterval) {
+            scheduleStatsSummary(compiled.getStatsLogInterval());
+        }
+    }
+
+    /**
+     * Count the items of all loaded chunks from scratch, when the chunk item limit gets enabled.
+     *
+     * <p>On Folia, the chunks of other regions can't be listed from here. Their counts are filled in
+     * when their entities are loaded and when items are spawned.
+     */
+    private void countChunkItems() {
+        chunkItems.clear();
+        if (TaskScheduler.isFolia()) {
+            return;
+        }
+
+        for (World world : getServer().getWorlds()) {
+            for (Entity entity : world.getEntities()) {
+                if (entity instanceof Item) {
+                    Location location = entity.getLocation(scratchLocation.get());
+                    chunkItems.add(world.getUID(), location.getBlockX() >> 4, location.getBlockZ() >> 4, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recount the items of the chunks that hold items, to correct the drift of the incremental counts.
+     *
+     * <p>This runs asynchronously and schedules the recount of each chunk on the thread that owns it.
+     */
+    private void reconcileChunkItems() {
+        if (policy.getChunkItemLimit() == 0) {
+            return;
+        }
+
+        for (World world : getServer().getWorlds()) {
+            for (long key : chunkItems.trackedChunks(world.getUID())) {
+                int chunkX = ChunkKeys.chunkX(key);
+                int chunkZ = ChunkKeys.chunkZ(key);
+                scheduler.runAtChunk(world, chunkX, chunkZ, () -> {
+                    if (world.isChunkLoaded(chunkX, chunkZ)) {
+                        chunkItems.recount(world.getChunkAt(chunkX, chunkZ));
+                    } else {
+                        chunkItems.set(world.getUID(), chunkX, chunkZ, 0);
+                    }
+                });
+            }
+        }
+    }
+
+    private void configureAuditLog(@Nonnull AuditSettings settings) {
+        AuditLog current = auditLog;
+        if (current != null ? current.getSettings().equals(settings) : !settings.enabled()) {
+            return;
+        }
+
+        if (current != null) {
+            auditLog = null;
+            current.stop();
+        }
+
+        if (settings.enabled()) {
+            AuditLog log = new AuditLog(new File(getDataFolder(), "audit").toPath(), settings, getLogger());
+            try {
+                log.start();
+                auditLog = log;
+            } catch (IOException ex) {
+                getLogger().log(Level.WARNING, "Could not open the audit log, blocked drops will not be recorded.", ex);
+            }
+        }
+    }
+
+    private void configureNetwork(@Nullable NetworkRole role) {
+        if (policySync != null && policySync.getRole() == role) {
+            return;
+        }
+
+        if (policySync != null) {
+            policySync.stop();
+            policySync = null;
+        }
+
+        if (role != null) {
+            policySync = new PolicySync(role, policyTransport.get(), scheduler, getLogger(), this::applyNetworkSettings);
+            policySync.start();
+        }
+    }
+
+    /**
+     * Send the settings of a locally loaded configuration to the network, or let the next settings
+     * from the network replace them on a receiving server.
+     */
+    private void publishToNetwork(@Nonnull DropPolicy compiled, @Nonnull ConfigurationSection config) {
+        PolicySync sync = policySync;
+        if (sync == null) {
+            return;
+        }
+
+        localSettings = PolicyTree.snapshot(config, PolicySync.LOCAL_KEYS::contains);
+        if (compiled.getNetworkRole() == NetworkRole.PUBLISH) {
+            try {
+                sync.publish(PolicyTree.snapshot(config, key -> !PolicySync.LOCAL_KEYS.contains(key)));
+            } catch (IllegalArgumentException ex) {
+                getLogger().log(Level.WARNING, "Could not send the drop settings to the network.", ex);
+            }
+        } else {
+            sync.reset();
+        }
+    }
+
+    /**
+     * Compile the settings received from the network, keeping the settings specific to this server, and swap them in.
+     *
+     * <p>This is called on an asynchronous thread. The settings specific to this server are taken from the
+     * last loaded configuration file, which is not the one of {@link #getConfig()} after an asynchronous
+     * reload. The policy is only published if no newer settings have been received and no configuration
+     * file has been loaded in the meantime. Network settings have their own counter, so they never discard
+     * a pending reload of the file; a reload resets the distribution, so the next snapshot is applied again.
+     */
+    private void applyNetworkSettings(@Nonnull Map<String, Object> settings) {
+        long generation = networkGeneration.incrementAndGet();
+        Map<String, Object> local = localSettings;
+        Map<String, Object> merged = new LinkedHashMap<>(settings);
+        merged.putAll(local != null ? local : PolicyTree.snapshot(getConfig(), PolicySync.LOCAL_KEYS::contains));
+
+        YamlConfiguration config = PolicyTree.toConfiguration(merged);
+        Configuration defaults = getConfig().getDefaults();
+        if (defaults != null) {
+            config.setDefaults(defaults);
+        }
+        DropPolicy compiled = DropPolicy.compile(config, getLogger(), policy);
+        scheduler.runGlobal(() -> {
+            if (generation == networkGeneration.get() && local == localSettings) {
+                publishPolicy(compiled);
+            }
+        });
+    }
+
+    /**
+     * Replace the transport of the network-wide policy distribution, for tests.
+     */
+    void setPolicyTransport(@Nonnull Supplier<PolicyTransport> transport) {
+        policyTransport = transport;
+    }
+
+    /**
+     * Get the network-wide distribution of the drop settings.
+     *
+     * @return The distribution, or {@code null} if it is disabled.
+     */
+    public @Nullable PolicySync getPolicySync() {
+        return policySync;
+    }
+
+    private void configurePlayerStats(boolean enabled) {
+        PlayerStatsStore current = playerStats;
+        if ((current != null) == enabled) {
+            return;
+        }
+
+        if (current != null) {
+            playerStatsTask.cancel();
+            playerStatsTask = null;
+            playerStats = null;
+            try {
+                current.close();
+            } catch (IOException ex) {
+                getLogger().log(Level.WARNING, "Could not close the player statistics file.", ex);
+            }
+            return;
+        }
+
+        PlayerStatsStore store = new PlayerStatsStore(new File(getDataFolder(), "player-stats.dat").toPath());
+        try {
+            store.open();
+            playerStats = store;
+            playerStatsTask = scheduler.runAsyncTimer(store::flush, PLAYER_STATS_FLUSH_PERIOD_TICKS, PLAYER_STATS_FLUSH_PERIOD_TICKS);
+        } catch (IOException ex) {
+            getLogger().log(Level.WARNING, "Could not open the player statistics file, drops will not be counted per player.", ex);
+        }
+    }
+
+    private void scheduleStatsSummary(int interval) {
+        if (statsTask != null) {
+            statsTask.cancel();
+            statsTask = null;
+        }
+
+        statsLogInterval = interval;
+        if (interval > 0) {
+            long period = interval * TICKS_PER_MINUTE;
+            statsTask = scheduler.runAsyncTimer(this::logStatsSummary, period, period);
+        }
+    }
+
+    private void logStatsSummary() {
+        DropMetrics.Counters total = metrics.getTotal();
+        getLogger().log(Level.INFO, "Drop statistics: {0} blocked, {1} allowed, {2} warned. Handler latency p99: {3}, max: {4}.", new Object[]{
+            total.getBlocked(), total.getAllowed(), total.getWarned(),
+            NumberUtils.formatNanos(metrics.getLatency().percentile(0.99)), NumberUtils.formatNanos(metrics.getLatency().max())
+        });
+    }
+
+    private void startConfigWatcher() {
+        if (configWatcher != null) {
+            return;
+        }
+
+        ConfigWatcher watcher = new ConfigWatcher(new File(getDataFolder(), "config.yml").toPath(), () -> reloadPolicyAsync(null), getLogger());
+        try {
+            watcher.start();
+            configWatcher = watcher;
+        } catch (IOException ex) {
+            getLogger().log(Level.WARNING, "Could not watch the configuration file for changes.", ex);
+        }
+    }
+
+    private void stopConfigWatcher() {
+        if (configWatcher != null) {
+            configWatcher.stop();
+            configWatcher = null;
+        }
+    }
+
+    public @Nonnull DropPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Get the audit log of blocked drops.
+     *
+     * @return The audit log, or {@code null} if it is disabled.
+     */
+    public @Nullable AuditLog getAuditLog() {
+        return auditLog;
+    }
+
+    /**
+     * Get the persistent drop counters per player.
+     *
+     * @return The store, or {@code null} if player statistics are disabled.
+     */
+    public @Nullable PlayerStatsStore getPlayerStats() {
+        return playerStats;
+    }
+
+    public @Nonnull TaskScheduler getTaskScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Register or unregister the feature listeners again on the main thread or global region, after
+     * the predicates of other plugins have changed.
+     */
+    public void refreshFeatureListeners() {
+        scheduler.runGlobal(() -> featureListeners.update(policy));
+    }
+
+    public @Nonnull DropPredicates getDropPredicates() {
+        return dropPredicates;
+    }
+
+    public @Nonnull FeatureListeners getFeatureListeners() {
+        return featureListeners;
+    }
+
+    public @Nonnull LagMonitor getLagMonitor() {
+        return lagMonitor;
+    }
+
+    /**
+     * Decide whether a player may drop the given item, warning the player if not.
+     *
+     * <p>This is shared by all event paths that can put an item on the ground. Item attribute rules
+     * are matched first, then the predicates registered by other plugins, then the rule of the region,
+     * world or server applies, with item drops disabled while the server is lagging. Drops that are
+     * allowed by the rules are subject to the chunk item limit and the drop rate limit of the player, if enabled.
+     *
+     * @param player The player dropping the item.
+     * @param source The entity whose location decides which rule applies, the dropped item or the player.
+     * @param stack  The dropped item.
+     * @return {@code true} if the drop has to be cancelled.
+     */
+    public boolean checkDrop(@Nullable Player player, @Nonnull Entity source, @Nonnull ItemStack stack) {
+        DropPolicy current = policy;
+        Material material = stack.getType();
+        UUID world = source.getWorld().getUID();
+        int path = decide(current, player, source, stack, material, world, true);
+        int decision = path & DecisionTrace.REASON_MASK;
+
+        if (decision != DecisionTrace.ALLOWED) {
+            Player p = validatePlayerObject(player);
+            if (!bypassCache.bypasses(p.getUniqueId(), material)) {
+                metrics.recordBlocked(world, material);
+                if (decision == DecisionTrace.LAG_BLOCKED) {
+                    metrics.recordLagBlocked();
+                } else if (decision == DecisionTrace.CHUNK_LIMITED) {
+                    metrics.recordChunkLimited();
+                } else if (decision == DecisionTrace.RATE_LIMITED) {
+                    metrics.recordRateLimited();
+                }
+                AuditLog audit = auditLog;
+                if (audit != null) {
+                    audit.record(p, source.getLocation(scratchLocation.get()), material, stack.getAmount());
+                }
+                boolean warned = current.isWarnPlayerOnDrop() && sendWarningMessage(p, current);
+                if (warned) {
+                    metrics.recordWarned(world, material);
+                }
+                recordPlayerStats(p, true, warned);
+                if (current.isWarnPlayerOnDrop()) {
+                    path |= warned ? DecisionTrace.WARNING_ENABLED | DecisionTrace.WARNED : DecisionTrace.WARNING_ENABLED | DecisionTrace.ON_COOLDOWN;
+                }
+                traceDecision(p, source, stack, world, path);
+                return true;
+            }
+            path |= DecisionTrace.BYPASSED;
+        }
+
+        metrics.recordAllowed(world, material);
+        if (player != null) {
+            recordPlayerStats(player, false, false);
+            traceDecision(player, source, stack, world, path);
+        }
+        return false;
+    }
+
+    private void traceDecision(@Nonnull Player p, @Nonnull Entity source, @Nonnull ItemStack stack, @Nonnull UUID world, int path) {
+        if (tracer.shouldTrace(p.getUniqueId())) {
+            Location location = source.getLocation(scratchLocation.get());
+            tracer.record(p.getUniqueId(), world, location.getBlockX(), location.getBlockY(), location.getBlockZ(), stack.getType(), stack.getAmount(), path);
         }
     }
 
-    private void cancelItemDrop(@Nonnull PlayerDropItemEvent e) {
-        Player p = validatePlayerObject(e.getPlayer());
-        e.setCancelled(true);
+    /**
+     * Check whether a drop of the given item by the player would be blocked right now.
+     *
+     * <p>Unlike {@link #checkDrop(Player, Entity, ItemStack)}, this has no side effects: no warning is
+     * sent, nothing is counted or recorded and no drop is taken from the rate limit of the player.
+     *
+     * @param player The player.
+     * @param stack  The item the player would drop.
+     * @return {@code true} if the drop would be cancelled.
+     */
+    public boolean wouldBlock(@Nonnull Player player, @Nonnull ItemStack stack) {
+        Material material = stack.getType();
+        return (decide(policy, player, player, stack, material, player.getWorld().getUID(), false) & DecisionTrace.REASON_MASK) != DecisionTrace.ALLOWED
+                && !bypassCache.bypasses(player.getUniqueId(), material);
+    }
+
+    /**
+     * Decide whether a drop is blocked and why, without the bypass permission of the player for blocked drops.
+     *
+     * @param consume Whether a drop is taken from the rate limit of the player, or only checked.
+     * @return The path of the decision, with {@link DecisionTrace#ALLOWED} or the reason the drop is blocked in its lowest bits.
+     */
+    private int decide(@Nonnull DropPolicy current, @Nullable Player player, @Nonnull Entity source, @Nonnull ItemStack stack, @Nonnull Material material, @Nonnull UUID world, boolean consume) {
+        ItemMatcher matcher = current.getItemMatcher();
+        ItemMatcher.Result result = matcher == null ? ItemMatcher.Result.ABSTAIN : matcher.match(stack);
+        if (result == ItemMatcher.Result.DENY) {
+            return DecisionTrace.BLOCKED | DecisionTrace.ITEM_RULE_DENIED;
+        }
+
+        int path = DecisionTrace.ALLOWED;
+        if (result == ItemMatcher.Result.ALLOW) {
+            path |= DecisionTrace.ITEM_RULE_ALLOWED;
+        } else {
+            DropDecision decision = player == null || dropPredicates.isEmpty() ? DropDecision.ABSTAIN : dropPredicates.test(player, material, world);
+            if (decision == DropDecision.DENY) {
+                return DecisionTrace.BLOCKED | DecisionTrace.PREDICATE_DENIED;
+            }
+
+            if (decision == DropDecision.ALLOW) {
+                path |= DecisionTrace.PREDICATE_ALLOWED;
+            } else {
+                DropRule rule = current.ruleAt(source, scratchLocation.get());
+                path |= DecisionTrace.ruleFlags(rule, material);
+                if (rule.blocks(material)) {
+                    return DecisionTrace.BLOCKED | path;
+                }
+                if (lagMonitor.isLagging()) {
+                    path |= DecisionTrace.LAGGING;
+                    if (rule.blocksIfDisabled(material)) {
+                        return DecisionTrace.LAG_BLOCKED | path;
+                    }
+                }
+            }
+        }
 
-        if (getConfig().getBoolean("warn-player-on-drop")) {
-            sendWarningMessage(p);
+        if (player != null && (current.getChunkItemLimit() > 0 || current.isRateLimited()) && !bypassCache.bypasses(player.getUniqueId(), material)) {
+            if (current.getChunkItemLimit() > 0) {
+                Location location = source.getLocation(scratchLocation.get());
+                if (chunkItems.get(world, location.getBlockX() >> 4, location.getBlockZ() >> 4) >= current.getChunkItemLimit()) {
+                    return DecisionTrace.CHUNK_LIMITED | path;
+                }
+            }
+            if (current.isRateLimited()) {
+                long now = System.nanoTime();
+                boolean available = consume
+                        ? rateLimiter.tryAcquire(player.getUniqueId(), now, current.getRateLimitCostNanos(), current.getRateLimitCapacityNanos())
+                        : rateLimiter.hasToken(player.getUniqueId(), now, current.getRateLimitCostNanos(), current.getRateLimitCapacityNanos());
+                if (!available) {
+                    return DecisionTrace.RATE_LIMITED | path;
+                }
+            }
         }
+        return path;
     }
 
     /**
-     * Reset the playerMessageTimestamps map, has no effect outside a unit test environment.
+     * Reset the warning cooldowns of all players, has no effect outside a unit test environment.
      */
     public void resetPlayerMessageTimestamps() {
         if (unitTestEnv) {
-            playerMessageTimestamps.clear();
+            cooldowns.clear();
+        }
+    }
+
+    public @Nonnull CooldownStore getCooldowns() {
+        return cooldowns;
+    }
+
+    public @Nonnull WarningQueue getWarningQueue() {
+        return warningQueue;
+    }
+
+    public @Nonnull LocaleCache getLocaleCache() {
+        return localeCache;
+    }
+
+    public @Nonnull ChunkItemCounter getChunkItems() {
+        return chunkItems;
+    }
+
+    public @Nonnull RecentDrops getRecentDrops() {
+        return recentDrops;
+    }
+
+    public @Nonnull RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public @Nonnull BypassCache getBypassCache() {
+        return bypassCache;
+    }
+
+    /**
+     * Resolve the bypass permissions of all online players again.
+     *
+     * <p>Bukkit has no event for permission changes, so this runs periodically to pick them up. Each
+     * player is resolved on the thread that owns them.
+     */
+    public void refreshBypassCache() {
+        for (Player p : getServer().getOnlinePlayers()) {
+            scheduler.executeForEntity(p, () -> bypassCache.refresh(p));
         }
     }
 
-    private void sendWarningMessage(@Nonnull Player p) {
-        long timeout = getConfig().getInt("warning-timeout") * 1000000000L; // Convert seconds to nanoseconds
-        long buffer = 500000000L; // 0.5s buffer
-        long now = System.nanoTime();
-        Long lastMessageTime = playerMessageTimestamps.get(p.getName());
+    public @Nonnull DropMetrics getMetrics() {
+        return metrics;
+    }
 
-        if (lastMessageTime == null || now - lastMessageTime >= timeout + buffer) {
-            p.sendMessage(formatChatMessage(validateWarningMessage(), p.getName()));
-            playerMessageTimestamps.put(p.getName(), now);
+    public @Nonnull DecisionTracer getTracer() {
+        return tracer;
+    }
+
+    private void purgeExpiredEntries() {
+        cooldowns.purgeExpired(System.nanoTime(), policy.getWarningTimeoutNanos() + WARNING_BUFFER_NANOS);
+        purgeRecentDrops();
+    }
+
+    /**
+     * Forget the chunks whose recent drops are all gone.
+     *
+     * <p>This runs asynchronously and schedules the check of each chunk on the thread that owns it,
+     * as item entities must not be accessed from other threads.
+     */
+    private void purgeRecentDrops() {
+        for (World world : getServer().getWorlds()) {
+            for (long key : recentDrops.trackedChunks(world.getUID())) {
+                scheduler.runAtChunk(world, ChunkKeys.chunkX(key), ChunkKeys.chunkZ(key), () -> recentDrops.purge(world.getUID(), key));
+            }
         }
     }
 
-    private String formatChatMessage(String str, String p) {
-        return str.replaceAll("&", MC_CHAR).replaceAll("%player%", p);
+    private void recordPlayerStats(@Nonnull Player p, boolean blocked, boolean warned) {
+        PlayerStatsStore stats = playerStats;
+        if (stats != null) {
+            stats.record(p.getUniqueId(), blocked, warned, System.currentTimeMillis());
+        }
     }
 
-    private @Nonnull String validateWarningMessage() {
-        @Nullable String msg = getConfig().getString("warning-message");
-        if (msg == null || msg.isEmpty()) {
-            throw new NullPointerException("The warn message you provided is not valid. If you don't want a warn message, please set 'warn-player-on-drop' to false. Or else if you want it, please provide a valid message and don't leave it blank.");
+    private boolean sendWarningMessage(@Nonnull Player p, @Nonnull DropPolicy current) {
+        LocalizedWarnings warnings = current.getWarnings();
+        if (warnings != null && cooldowns.tryAcquire(p.getUniqueId(), System.nanoTime(), current.getWarningTimeoutNanos() + WARNING_BUFFER_NANOS)) {
+            WarningTemplate template = localeCache.get(p, warnings);
+            warningQueue.enqueue(p, template.render(p.getName()), current.getWarningDisplay());
+            return true;
         }
-        return msg;
+        return false;
     }
 
     private @Nonnull Player validatePlayerObject(@Nullable Player obj) {
@@ -0,0 +1,19 @@
+package com.altiran.dropstop.api;
+
+/**
+ * The decision of a {@link DropPredicate} about a drop.
+ */
+public enum DropDecision {
+    /**
+     * The drop is allowed, regardless of the drop settings.
+     */
+    ALLOW,
+    /**
+     * The drop is blocked, unless the player has a bypass permission.
+     */
+    DENY,
+    /**
+     * The predicate has no opinion, the next predicate or the drop settings decide.
+     */
+    ABSTAIN
+}
@@ -0,0 +1,26 @@
+package com.altiran.dropstop.api;
+
+import jakarta.annotation.Nonnull;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+
+import java.util.UUID;
+
+/**
+ * A rule of another plugin that decides whether a player may drop an item.
+ *
+ * <p>Predicates are called for every drop, on the thread that owns the player, so they should be
+ * fast and must not allocate or block. Register them with {@link DropStopApi#registerPredicate}.
+ */
+@FunctionalInterface
+public interface DropPredicate {
+    /**
+     * Decide whether the player may drop an item.
+     *
+     * @param player   The player dropping the item.
+     * @param material The material of the dropped item.
+     * @param worldId  The unique id of the world the item is dropped in.
+     * @return The decision, {@link DropDecision#ABSTAIN} to leave it to the next predicate or the drop settings.
+     */
+    @Nonnull DropDecision test(@Nonnull Player player, @Nonnull Material material, @Nonnull UUID worldId);
+}
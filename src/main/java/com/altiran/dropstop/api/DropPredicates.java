@@ -0,0 +1,128 @@
+package com.altiran.dropstop.api;
+
+import jakarta.annotation.Nonnull;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The predicates registered by other plugins, kept in a flat copy-on-write array.
+ *
+ * <p>Registrations are rare and copy the array, while the drop handler only reads the current array
+ * and walks it until a predicate decides, so evaluating the predicates does not lock or allocate.
+ */
+public final class DropPredicates {
+    private static final DropPredicate[] NO_PREDICATES = new DropPredicate[0];
+    private static final Plugin[] NO_OWNERS = new Plugin[0];
+
+    private final Logger logger;
+    private volatile DropPredicate[] predicates = NO_PREDICATES;
+    private volatile Plugin[] owners = NO_OWNERS;
+
+    /**
+     * Create a new, empty set of predicates.
+     *
+     * @param logger The logger to report failing predicates to.
+     */
+    public DropPredicates(@Nonnull Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Add a predicate after the ones that are already registered.
+     *
+     * @param owner     The plugin registering the predicate.
+     * @param predicate The predicate.
+     */
+    public synchronized void add(@Nonnull Plugin owner, @Nonnull DropPredicate predicate) {
+        int size = predicates.length;
+        DropPredicate[] nextPredicates = Arrays.copyOf(predicates, size + 1);
+        Plugin[] nextOwners = Arrays.copyOf(owners, size + 1);
+        nextPredicates[size] = predicate;
+        nextOwners[size] = owner;
+        owners = nextOwners;
+        predicates = nextPredicates;
+    }
+
+    /**
+     * Remove a predicate.
+     *
+     * @param predicate The predicate to remove.
+     * @return {@code true} if the predicate was registered.
+     */
+    public synchronized boolean remove(@Nonnull DropPredicate predicate) {
+        for (int i = 0; i < predicates.length; i++) {
+            if (predicates[i] == predicate) {
+                removeAt(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove all predicates of a plugin.
+     *
+     * @param owner The plugin that registered the predicates.
+     */
+    public synchronized void removeAll(@Nonnull Plugin owner) {
+        for (int i = owners.length - 1; i >= 0; i--) {
+            if (owners[i] == owner) {
+                removeAt(i);
+            }
+        }
+    }
+
+    private void removeAt(int index) {
+        int size = predicates.length;
+        DropPredicate[] nextPredicates = new DropPredicate[size - 1];
+        Plugin[] nextOwners = new Plugin[size - 1];
+        System.arraycopy(predicates, 0, nextPredicates, 0, index);
+        System.arraycopy(predicates, index + 1, nextPredicates, index, size - index - 1);
+        System.arraycopy(owners, 0, nextOwners, 0, index);
+        System.arraycopy(owners, index + 1, nextOwners, index, size - index - 1);
+        owners = nextOwners;
+        predicates = nextPredicates;
+    }
+
+    /**
+     * Evaluate the predicates in order until one of them doesn't abstain.
+     *
+     * <p>A predicate that throws an exception is logged and treated as abstaining.
+     *
+     * @param player   The player dropping the item.
+     * @param material The material of the dropped item.
+     * @param worldId  The unique id of the world the item is dropped in.
+     * @return The first decision that is not {@link DropDecision#ABSTAIN}, or {@code ABSTAIN} if all predicates abstain.
+     */
+    public @Nonnull DropDecision test(@Nonnull Player player, @Nonnull Material material, @Nonnull UUID worldId) {
+        DropPredicate[] current = predicates;
+        for (int i = 0; i < current.length; i++) {
+            DropDecision decision;
+            try {
+                decision = current[i].test(player, material, worldId);
+            } catch (RuntimeException ex) {
+                logger.log(Level.WARNING, "A drop predicate failed, ignoring it for this drop.", ex);
+                continue;
+            }
+
+            if (decision != null && decision != DropDecision.ABSTAIN) {
+                return decision;
+            }
+        }
+        return DropDecision.ABSTAIN;
+    }
+
+    public boolean isEmpty() {
+        return predicates.length == 0;
+    }
+
+    public int size() {
+        return predicates.length;
+    }
+}
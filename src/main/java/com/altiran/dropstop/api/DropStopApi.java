@@ -0,0 +1,53 @@
+package com.altiran.dropstop.api;
+
+import jakarta.annotation.Nonnull;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * The API of DropStop for other plugins, available through the {@link org.bukkit.plugin.ServicesManager}.
+ *
+ * <pre>{@code
+ * DropStopApi api = Bukkit.getServicesManager().load(DropStopApi.class);
+ * api.registerPredicate(this, (player, material, worldId) -> ...);
+ * }</pre>
+ */
+public interface DropStopApi {
+    /**
+     * Register a predicate that is evaluated for every drop, after the item rules of the configuration and before its
+     * world and region rules. Predicates are evaluated in the order they have been registered, the first one that
+     * doesn't abstain decides. The predicates of a plugin are removed when it is disabled.
+     *
+     * @param owner     The plugin registering the predicate.
+     * @param predicate The predicate.
+     */
+    void registerPredicate(@Nonnull Plugin owner, @Nonnull DropPredicate predicate);
+
+    /**
+     * Remove a predicate.
+     *
+     * @param predicate The predicate to remove.
+     * @return {@code true} if the predicate was registered.
+     */
+    boolean unregisterPredicate(@Nonnull DropPredicate predicate);
+
+    /**
+     * Remove all predicates of a plugin.
+     *
+     * @param owner The plugin that registered the predicates.
+     */
+    void unregisterPredicates(@Nonnull Plugin owner);
+
+    /**
+     * Check whether a drop of the given item by the player would be blocked right now, without firing an event.
+     *
+     * <p>This has no side effects: no warning is sent, nothing is counted and no drop is taken from the rate limit of
+     * the player. Must be called on the thread that owns the player.
+     *
+     * @param player The player.
+     * @param stack  The item the player would drop.
+     * @return {@code true} if the drop would be cancelled.
+     */
+    boolean wouldBlock(@Nonnull Player player, @Nonnull ItemStack stack);
+}
@@ -0,0 +1,51 @@
+package com.altiran.dropstop.api;
+
+import com.altiran.dropstop.DropStop;
+import jakarta.annotation.Nonnull;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * The implementation of the {@link DropStopApi} registered by the plugin.
+ */
+public final class DropStopService implements DropStopApi {
+    private final DropStop plugin;
+    private final DropPredicates predicates;
+
+    /**
+     * Create a new service.
+     *
+     * @param plugin The plugin instance.
+     */
+    public DropStopService(@Nonnull DropStop plugin) {
+        this.plugin = plugin;
+        this.predicates = plugin.getDropPredicates();
+    }
+
+    @Override
+    public void registerPredicate(@Nonnull Plugin owner, @Nonnull DropPredicate predicate) {
+        predicates.add(owner, predicate);
+        plugin.refreshFeatureListeners();
+    }
+
+    @Override
+    public boolean unregisterPredicate(@Nonnull DropPredicate predicate) {
+        if (predicates.remove(predicate)) {
+            plugin.refreshFeatureListeners();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void unregisterPredicates(@Nonnull Plugin owner) {
+        predicates.removeAll(owner);
+        plugin.refreshFeatureListeners();
+    }
+
+    @Override
+    public boolean wouldBlock(@Nonnull Player player, @Nonnull ItemStack stack) {
+        return plugin.wouldBlock(player, stack);
+    }
+}
@@ -0,0 +1,336 @@
+package com.altiran.dropstop.audit;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records blocked drops into a rotating log file, one JSON object per line.
+ *
+ * <p>The drop handler only publishes a record into an {@link AuditRing}. A single background thread
+ * drains the ring in batches, encodes them into one buffer and writes it to the file channel with a
+ * single call, so no file I/O ever happens on a tick thread.
+ */
+public final class AuditLog implements Runnable {
+    /**
+     * The name of the current log file. Rotated files get a number before the extension.
+     */
+    public static final String FILE_NAME = "audit.log";
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long STOP_TIMEOUT_MILLIS = 5000L;
+    private static final int BATCH_SIZE = 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final AuditSettings settings;
+    private final Logger logger;
+    private final AuditRing ring;
+    private final LongAdder written = new LongAdder();
+    private final StringBuilder batch = new StringBuilder(BUFFER_SIZE);
+    private final AuditRecord record = new AuditRecord();
+    private volatile boolean running;
+    private Thread thread;
+    private FileChannel channel;
+
+    /**
+     * Create a new audit log.
+     *
+     * @param directory The directory to write the log files to.
+     * @param settings  The settings of the audit log.
+     * @param logger    The logger to report errors to.
+     */
+    public AuditLog(@Nonnull Path directory, @Nonnull AuditSettings settings, @Nonnull Logger logger) {
+        this.directory = directory;
+        this.settings = settings;
+        this.logger = logger;
+        this.ring = new AuditRing(settings.bufferSize());
+    }
+
+    /**
+     * Open the log file and start the writer on a new daemon thread.
+     *
+     * @throws IOException If the log file cannot be opened.
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            return;
+        }
+
+        Files.createDirectories(directory);
+        channel = openChannel();
+        running = true;
+
+        thread = new Thread(this, "DropStop-AuditWriter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop the writer after it has written the records that are still waiting. Has no effect if the writer is not running.
+     */
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    /**
+     * Record a blocked drop. Never blocks, the record is dropped if too many are waiting to be written.
+     *
+     * @param player   The player who tried to drop the item.
+     * @param location The location of the drop.
+     * @param material The material of the item.
+     * @param amount   The amount of items in the stack.
+     */
+    public void record(@Nonnull Player player, @Nonnull Location location, @Nonnull Material material, int amount) {
+        World world = location.getWorld();
+        ring.offer(System.currentTimeMillis(), player.getUniqueId(), player.getName(), world == null ? "" : world.getName(),
+                location.getBlockX(), location.getBlockY(), location.getBlockZ(), material, amount);
+    }
+
+    public @Nonnull AuditSettings getSettings() {
+        return settings;
+    }
+
+    public @Nonnull Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get the number of records written to the log file.
+     */
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * Get the number of records dropped because too many were waiting to be written.
+     */
+    public long getDropped() {
+        return ring.getDropped();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                boolean stopping = !running;
+                int count = drainBatch();
+                if (count == 0) {
+                    if (stopping) {
+                        break;
+                    }
+                    LockSupport.parkNanos(this, FLUSH_INTERVAL_NANOS);
+                }
+            }
+        } catch (IOException ex) {
+            logger.log(Level.SEVERE, "Could not write the audit log, no more drops will be recorded.", ex);
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Could not close the audit log.", ex);
+            }
+        }
+    }
+
+    private int drainBatch() throws IOException {
+        int count = 0;
+        while (count < BATCH_SIZE && ring.poll(record)) {
+            encode(record, batch);
+            count++;
+        }
+
+        if (count > 0) {
+            ByteBuffer buffer = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+            batch.setLength(0);
+
+            if (channel.size() > 0 && channel.size() + buffer.remaining() > settings.maxFileSize()) {
+                rotate();
+            }
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            written.add(count);
+        }
+        return count;
+    }
+
+    private void rotate() throws IOException {
+        channel.close();
+
+        Path current = directory.resolve(FILE_NAME);
+        if (settings.maxFiles() == 0) {
+            Files.delete(current);
+        } else {
+            Files.deleteIfExists(rotatedFile(directory, settings.maxFiles()));
+            for (int i = settings.maxFiles() - 1; i >= 1; i--) {
+                Path source = rotatedFile(directory, i);
+                if (Files.exists(source)) {
+                    Files.move(source, rotatedFile(directory, i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(current, rotatedFile(directory, 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        channel = openChannel();
+    }
+
+    private @Nonnull FileChannel openChannel() throws IOException {
+        return FileChannel.open(directory.resolve(FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static @Nonnull Path rotatedFile(@Nonnull Path directory, int index) {
+        return directory.resolve("audit." + index + ".log");
+    }
+
+    private static void encode(@Nonnull AuditRecord record, @Nonnull StringBuilder out) {
+        out.append("{\"time\":\"");
+        appendEscaped(Instant.ofEpochMilli(record.getTimestamp()).toString(), out);
+        out.append("\",\"player\":\"");
+        appendEscaped(record.getPlayerName(), out);
+        out.append("\",\"uuid\":\"");
+        appendEscaped(record.getPlayerId().toString(), out);
+        out.append("\",\"world\":\"");
+        appendEscaped(record.getWorld(), out);
+        out.append("\",\"x\":").append(record.getX())
+                .append(",\"y\":").append(record.getY())
+                .append(",\"z\":").append(record.getZ())
+                .append(",\"material\":\"");
+        appendEscaped(record.getMaterial().name(), out);
+        out.append("\",\"amount\":").append(record.getAmount())
+                .append("}\n");
+    }
+
+    private static void appendEscaped(@Nonnull String value, @Nonnull StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    /**
+     * Scan the log files for the most recent entries, newest files first.
+     *
+     * <p>This reads files and should not be called on a tick thread.
+     *
+     * @param directory The directory of the log files.
+     * @param player    The name of the player to filter by, or {@code null} for all players.
+     * @param limit     The maximum number of entries to return.
+     * @return The matching entries as JSON lines, oldest first.
+     * @throws IOException If a log file cannot be read.
+     */
+    public static @Nonnull List<String> query(@Nonnull Path directory, @Nullable String player, int limit) throws IOException {
+        String needle = null;
+        if (player != null) {
+            StringBuilder escaped = new StringBuilder("\"player\":\"");
+            appendEscaped(player, escaped);
+            needle = escaped.append('"').toString();
+        }
+        Deque<String> result = new ArrayDeque<>(limit);
+
+        for (int i = 0; result.size() < limit; i++) {
+            Path file = i == 0 ? directory.resolve(FILE_NAME) : rotatedFile(directory, i);
+            Deque<String> matches = new ArrayDeque<>(limit);
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.endsWith("}") && (needle == null || line.regionMatches(true, line.indexOf("\"player\":"), needle, 0, needle.length()))) {
+                        if (matches.size() == limit - result.size()) {
+                            matches.pollFirst();
+                        }
+                        matches.addLast(line);
+                    }
+                }
+            } catch (NoSuchFileException ex) {
+                break;
+            }
+
+            while (!matches.isEmpty()) {
+                result.addFirst(matches.pollLast());
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Read a field of an entry returned by {@link #query(Path, String, int)}.
+     *
+     * @param entry The JSON line of the entry.
+     * @param key   The name of the field.
+     * @return The value of the field without quotes, or an empty string if it is missing.
+     */
+    public static @Nonnull String field(@Nonnull String entry, @Nonnull String key) {
+        String prefix = "\"" + key + "\":";
+        int start = entry.indexOf(prefix);
+        if (start == -1) {
+            return "";
+        }
+
+        start += prefix.length();
+        if (entry.charAt(start) == '"') {
+            start++;
+            StringBuilder value = new StringBuilder();
+            for (int i = start; i < entry.length(); i++) {
+                char c = entry.charAt(i);
+                if (c == '\\' && i + 5 < entry.length() && entry.charAt(i + 1) == 'u') {
+                    value.append((char) Integer.parseInt(entry, i + 2, i + 6, 16));
+                    i += 5;
+                } else if (c == '\\' && i + 1 < entry.length()) {
+                    value.append(entry.charAt(++i));
+                } else if (c == '"') {
+                    break;
+                } else {
+                    value.append(c);
+                }
+            }
+            return value.toString();
+        }
+
+        int end = start;
+        while (end < entry.length() && entry.charAt(end) != ',' && entry.charAt(end) != '}') {
+            end++;
+        }
+        return entry.substring(start, end);
+    }
+}
@@ -0,0 +1,78 @@
+package com.altiran.dropstop.audit;
+
+import jakarta.annotation.Nonnull;
+import org.bukkit.Material;
+
+import java.util.UUID;
+
+/**
+ * A blocked drop, as stored in a slot of the {@link AuditRing}.
+ *
+ * <p>The record is mutable so the slots of the ring can be allocated once and reused.
+ */
+public final class AuditRecord {
+    private long timestamp;
+    private UUID playerId;
+    private String playerName;
+    private String world;
+    private int x;
+    private int y;
+    private int z;
+    private Material material;
+    private int amount;
+
+    void set(long timestamp, @Nonnull UUID playerId, @Nonnull String playerName, @Nonnull String world, int x, int y, int z, @Nonnull Material material, int amount) {
+        this.timestamp = timestamp;
+        this.playerId = playerId;
+        this.playerName = playerName;
+        this.world = world;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.material = material;
+        this.amount = amount;
+    }
+
+    void copyFrom(@Nonnull AuditRecord other) {
+        set(other.timestamp, other.playerId, other.playerName, other.world, other.x, other.y, other.z, other.material, other.amount);
+    }
+
+    /**
+     * Get the time of the drop in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public String getWorld() {
+        return world;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getZ() {
+        return z;
+    }
+
+    public Material getMaterial() {
+        return material;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+}
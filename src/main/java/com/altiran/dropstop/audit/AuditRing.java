@@ -0,0 +1,101 @@
+package com.altiran.dropstop.audit;
+
+import jakarta.annotation.Nonnull;
+import org.bukkit.Material;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded lock-free ring buffer of audit records, with many producers and a single consumer.
+ *
+ * <p>All slots are allocated up front, publishing a record only copies its fields into a free slot.
+ * Each slot carries a sequence number telling whether it is free or holds a published record, so
+ * producers claim slots with a single CAS and never wait for each other or for the consumer. When the
+ * ring is full, the record is dropped and counted instead.
+ */
+public final class AuditRing {
+    private final AuditRecord[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private long head; // Only accessed by the consumer
+
+    /**
+     * Create a new ring buffer.
+     *
+     * @param capacity The minimum number of records the ring can hold, rounded up to a power of two.
+     */
+    public AuditRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new AuditRecord[size];
+        sequences = new AtomicLongArray(size);
+        mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            slots[i] = new AuditRecord();
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Publish a record, never blocks.
+     *
+     * @return {@code true} if the record was published, {@code false} if the ring is full and it was dropped.
+     */
+    public boolean offer(long timestamp, @Nonnull UUID playerId, @Nonnull String playerName, @Nonnull String world, int x, int y, int z, @Nonnull Material material, int amount) {
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                dropped.increment();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+
+        slots[index].set(timestamp, playerId, playerName, world, x, y, z, material, amount);
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Take the oldest published record out of the ring. Must only be called by the consumer thread.
+     *
+     * @param target The record to copy the fields into.
+     * @return {@code true} if a record was copied, {@code false} if the ring is empty.
+     */
+    public boolean poll(@Nonnull AuditRecord target) {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return false;
+        }
+
+        target.copyFrom(slots[index]);
+        sequences.lazySet(index, head + slots.length);
+        head++;
+        return true;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Get the number of records dropped because the ring was full.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+}
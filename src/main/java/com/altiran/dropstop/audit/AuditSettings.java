@@ -0,0 +1,40 @@
+package com.altiran.dropstop.audit;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * Settings of the audit log.
+ *
+ * @param enabled     Whether blocked drops are recorded.
+ * @param bufferSize  The number of records that can wait to be written before new ones are dropped.
+ * @param maxFileSize The size in bytes after which the log file is rotated.
+ * @param maxFiles    The number of rotated log files to keep.
+ */
+public record AuditSettings(boolean enabled, int bufferSize, long maxFileSize, int maxFiles) {
+    /**
+     * The settings used when the audit log is not configured.
+     */
+    public static final AuditSettings DISABLED = new AuditSettings(false, 8192, 10L * 1024 * 1024, 5);
+
+    private static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
+
+    /**
+     * Read the settings from the given configuration section.
+     *
+     * @param section The {@code audit-log} section, or {@code null} if it is missing.
+     * @return The settings.
+     */
+    public static @Nonnull AuditSettings compile(@Nullable ConfigurationSection section) {
+        if (section == null) {
+            return DISABLED;
+        }
+
+        return new AuditSettings(
+                section.getBoolean("enabled", false),
+                Math.max(16, section.getInt("buffer-size", DISABLED.bufferSize)),
+                Math.max(1, section.getInt("max-file-size", (int) (DISABLED.maxFileSize / BYTES_PER_MEGABYTE))) * BYTES_PER_MEGABYTE,
+                Math.max(0, section.getInt("max-files", DISABLED.maxFiles)));
+    }
+}
@@ -0,0 +1,192 @@
+package com.altiran.dropstop.chunk;
+
+import com.altiran.dropstop.utils.ChunkKeys;
+import com.altiran.dropstop.utils.LongIntHashMap;
+import jakarta.annotation.Nonnull;
+import org.bukkit.Chunk;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the item entities per chunk, maintained incrementally from entity events.
+ *
+ * <p>The counts of each world are kept in primitive long-keyed maps, split into stripes by chunk that
+ * are each guarded by their own lock, so region threads on Folia rarely contend with each other and
+ * reading a count does not allocate. Items that leave a chunk without an event, e.g. by being pushed
+ * into the next chunk or burning in lava, make the counts drift, which is corrected by recounting the
+ * tracked chunks periodically.
+ */
+public final class ChunkItemCounter {
+    private static final int STRIPES = 16; // Must be a power of two
+
+    private final Map<UUID, WorldCounts> worlds = new ConcurrentHashMap<>();
+
+    /**
+     * Get the number of item entities in the given chunk.
+     *
+     * @param world  The unique id of the world.
+     * @param chunkX The x coordinate of the chunk.
+     * @param chunkZ The z coordinate of the chunk.
+     * @return The number of items.
+     */
+    public int get(@Nonnull UUID world, int chunkX, int chunkZ) {
+        WorldCounts counts = worlds.get(world);
+        if (counts == null) {
+            return 0;
+        }
+
+        long key = ChunkKeys.pack(chunkX, chunkZ);
+        LongIntHashMap stripe = counts.stripe(key);
+        synchronized (stripe) {
+            return stripe.get(key);
+        }
+    }
+
+    /**
+     * Add the given delta to the number of item entities in the given chunk.
+     *
+     * @param world  The unique id of the world.
+     * @param chunkX The x coordinate of the chunk.
+     * @param chunkZ The z coordinate of the chunk.
+     * @param delta  The number of items that have been added, negative if they have been removed.
+     */
+    public void add(@Nonnull UUID world, int chunkX, int chunkZ, int delta) {
+        WorldCounts counts = worlds.get(world);
+        if (counts == null) {
+            if (delta <= 0) {
+                return;
+            }
+            counts = worlds.computeIfAbsent(world, id -> new WorldCounts());
+        }
+
+        long key = ChunkKeys.pack(chunkX, chunkZ);
+        LongIntHashMap stripe = counts.stripe(key);
+        synchronized (stripe) {
+            stripe.addTo(key, delta);
+        }
+    }
+
+    /**
+     * Set the number of item entities in the given chunk.
+     *
+     * @param world  The unique id of the world.
+     * @param chunkX The x coordinate of the chunk.
+     * @param chunkZ The z coordinate of the chunk.
+     * @param count  The number of items, 0 to stop tracking the chunk.
+     */
+    public void set(@Nonnull UUID world, int chunkX, int chunkZ, int count) {
+        WorldCounts counts = count > 0 ? worlds.computeIfAbsent(world, id -> new WorldCounts()) : worlds.get(world);
+        if (counts == null) {
+            return;
+        }
+
+        long key = ChunkKeys.pack(chunkX, chunkZ);
+        LongIntHashMap stripe = counts.stripe(key);
+        synchronized (stripe) {
+            stripe.put(key, count);
+        }
+    }
+
+    /**
+     * Count the item entities of a loaded chunk from scratch. Must be called on the thread that owns the chunk.
+     *
+     * @param chunk The chunk to count the items of.
+     */
+    public void recount(@Nonnull Chunk chunk) {
+        set(chunk.getWorld().getUID(), chunk.getX(), chunk.getZ(), countItems(chunk.getEntities()));
+    }
+
+    /**
+     * Count the items among the given entities.
+     *
+     * @param entities The entities.
+     * @return The number of item entities.
+     */
+    public static int countItems(@Nonnull Iterable<? extends Entity> entities) {
+        int count = 0;
+        for (Entity entity : entities) {
+            if (entity instanceof Item) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int countItems(@Nonnull Entity[] entities) {
+        int count = 0;
+        for (Entity entity : entities) {
+            if (entity instanceof Item) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the keys of the chunks of the given world that currently hold items.
+     *
+     * @param world The unique id of the world.
+     * @return The chunk keys, as packed by {@link ChunkKeys#pack(int, int)}.
+     */
+    public @Nonnull long[] trackedChunks(@Nonnull UUID world) {
+        WorldCounts counts = worlds.get(world);
+        if (counts == null) {
+            return new long[0];
+        }
+
+        long[][] parts = new long[STRIPES][];
+        int total = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            synchronized (counts.stripes[i]) {
+                parts[i] = counts.stripes[i].keys();
+            }
+            total += parts[i].length;
+        }
+
+        long[] keys = new long[total];
+        int offset = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, keys, offset, part.length);
+            offset += part.length;
+        }
+        return keys;
+    }
+
+    /**
+     * Get the number of chunks that currently hold items, over all worlds.
+     */
+    public int size() {
+        int size = 0;
+        for (WorldCounts counts : worlds.values()) {
+            for (LongIntHashMap stripe : counts.stripes) {
+                synchronized (stripe) {
+                    size += stripe.size();
+                }
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        worlds.clear();
+    }
+
+    private static final class WorldCounts {
+        private final LongIntHashMap[] stripes = new LongIntHashMap[STRIPES];
+
+        private WorldCounts() {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new LongIntHashMap();
+            }
+        }
+
+        private @Nonnull LongIntHashMap stripe(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return stripes[(int) (h >>> 60) & (STRIPES - 1)];
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.altiran.dropstop.chunk;
+
+import com.altiran.dropstop.utils.ChunkKeys;
+import com.altiran.dropstop.utils.LongObjectHashMap;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.bukkit.Location;
+import org.bukkit.entity.Item;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the most recent dropped item entities of each chunk, to find a stack to merge a new drop into.
+ *
+ * <p>Each chunk keeps a small ring of the last dropped items, so finding a nearby stack only checks a
+ * handful of entities instead of querying the entities of the world. The chunks of each world are split
+ * into stripes, each guarded by its own lock. Entries whose items are all gone are purged periodically,
+ * on the thread that owns the chunk, as the items can only be checked there.
+ */
+public final class RecentDrops {
+    private static final int SLOTS = 4;
+    private static final int STRIPES = 16; // Must be a power of two
+
+    private final Map<UUID, LongObjectHashMap<Slots>[]> worlds = new ConcurrentHashMap<>();
+    private final ThreadLocal<Item[]> candidates = ThreadLocal.withInitial(() -> new Item[SLOTS]);
+
+    /**
+     * Find a recent drop near the given location that the given stack can be merged into.
+     *
+     * <p>Must be called on the thread that owns the chunk.
+     *
+     * @param world         The unique id of the world.
+     * @param location      The location of the new drop.
+     * @param stack         The dropped stack.
+     * @param radiusSquared The squared maximum distance between the drops.
+     * @param scratch       A location to copy the position of the candidates into, to avoid allocating a new one.
+     * @return A valid item entity with a similar stack and enough room for the dropped amount, or {@code null}.
+     */
+    public @Nullable Item find(@Nonnull UUID world, @Nonnull Location location, @Nonnull ItemStack stack, double radiusSquared, @Nonnull Location scratch) {
+        LongObjectHashMap<Slots>[] stripes = worlds.get(world);
+        if (stripes == null) {
+            return null;
+        }
+
+        long key = ChunkKeys.ofBlock(location.getBlockX(), location.getBlockZ());
+        LongObjectHashMap<Slots> stripe = stripe(stripes, key);
+        Item[] buffer = candidates.get();
+        synchronized (stripe) {
+            Slots slots = stripe.get(key);
+            if (slots == null) {
+                return null;
+            }
+            System.arraycopy(slots.items, 0, buffer, 0, SLOTS);
+        }
+
+        Item found = null;
+        for (Item candidate : buffer) {
+            if (candidate == null || !candidate.isValid()) {
+                continue;
+            }
+
+            ItemStack existing = candidate.getItemStack();
+            if (existing.getAmount() + stack.getAmount() <= existing.getMaxStackSize()
+                    && existing.isSimilar(stack)
+                    && candidate.getLocation(scratch).distanceSquared(location) <= radiusSquared) {
+                found = candidate;
+                break;
+            }
+        }
+        Arrays.fill(buffer, null); // Don't keep removed entities reachable from the thread
+        return found;
+    }
+
+    /**
+     * Remember a dropped item entity in the chunk of the given location.
+     *
+     * @param world    The unique id of the world.
+     * @param location The location of the drop.
+     * @param item     The dropped item entity.
+     */
+    public void add(@Nonnull UUID world, @Nonnull Location location, @Nonnull Item item) {
+        LongObjectHashMap<Slots>[] stripes = worlds.computeIfAbsent(world, id -> newStripes());
+        long key = ChunkKeys.ofBlock(location.getBlockX(), location.getBlockZ());
+        LongObjectHashMap<Slots> stripe = stripe(stripes, key);
+        synchronized (stripe) {
+            Slots slots = stripe.get(key);
+            if (slots == null) {
+                slots = new Slots();
+                stripe.put(key, slots);
+            }
+
+            slots.items[slots.next] = item;
+            slots.next = (slots.next + 1) % SLOTS;
+        }
+    }
+
+    /**
+     * Get the keys of the chunks with recent drops in the given world.
+     *
+     * @param world The unique id of the world.
+     * @return The chunk keys, see {@link ChunkKeys}.
+     */
+    public @Nonnull long[] trackedChunks(@Nonnull UUID world) {
+        LongObjectHashMap<Slots>[] stripes = worlds.get(world);
+        if (stripes == null) {
+            return new long[0];
+        }
+
+        long[][] parts = new long[STRIPES][];
+        int total = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            synchronized (stripes[i]) {
+                long[] part = new long[stripes[i].size()];
+                int[] index = {0};
+                stripes[i].forEach((key, slots) -> part[index[0]++] = key);
+                parts[i] = part;
+            }
+            total += parts[i].length;
+        }
+
+        long[] keys = new long[total];
+        int offset = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, keys, offset, part.length);
+            offset += part.length;
+        }
+        return keys;
+    }
+
+    /**
+     * Forget a chunk if its remembered items are all gone.
+     *
+     * <p>Must be called on the thread that owns the chunk.
+     *
+     * @param world The unique id of the world.
+     * @param key   The key of the chunk, see {@link ChunkKeys}.
+     * @return {@code true} if the chunk was forgotten.
+     */
+    public boolean purge(@Nonnull UUID world, long key) {
+        LongObjectHashMap<Slots>[] stripes = worlds.get(world);
+        if (stripes == null) {
+            return false;
+        }
+
+        LongObjectHashMap<Slots> stripe = stripe(stripes, key);
+        synchronized (stripe) {
+            Slots slots = stripe.get(key);
+            if (slots == null || slots.hasValidItem()) {
+                return false;
+            }
+            stripe.remove(key);
+            return true;
+        }
+    }
+
+    /**
+     * Get the number of chunks with recent drops, over all worlds.
+     */
+    public int size() {
+        int size = 0;
+        for (LongObjectHashMap<Slots>[] stripes : worlds.values()) {
+            for (LongObjectHashMap<Slots> stripe : stripes) {
+                synchronized (stripe) {
+                    size += stripe.size();
+                }
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        worlds.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static @Nonnull LongObjectHashMap<Slots>[] newStripes() {
+        LongObjectHashMap<Slots>[] stripes = new LongObjectHashMap[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LongObjectHashMap<>();
+        }
+        return stripes;
+    }
+
+    private static @Nonnull LongObjectHashMap<Slots> stripe(@Nonnull LongObjectHashMap<Slots>[] stripes, long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h >>> 60) & (STRIPES - 1)];
+    }
+
+    private static final class Slots {
+        private final Item[] items = new Item[SLOTS];
+        private int next;
+
+        private boolean hasValidItem() {
+            for (Item item : items) {
+                if (item != null && item.isValid()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
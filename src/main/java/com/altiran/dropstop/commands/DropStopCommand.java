@@ -0,0 +1,356 @@
+package com.altiran.dropstop.commands;
+
+import com.altiran.dropstop.DropStop;
+import com.altiran.dropstop.audit.AuditLog;
+import com.altiran.dropstop.lag.LagMonitor;
+import com.altiran.dropstop.metrics.DropMetrics;
+import com.altiran.dropstop.metrics.LatencyHistogram;
+import com.altiran.dropstop.network.PolicySync;
+import com.altiran.dropstop.player.PlayerStats;
+import com.altiran.dropstop.player.PlayerStatsStore;
+import com.altiran.dropstop.trace.DecisionTracer;
+import com.altiran.dropstop.utils.NumberUtils;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.bukkit.Material;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.bukkit.entity.Player;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Executor for the {@code /dropstop} command.
+ */
+public final class DropStopCommand implements TabExecutor {
+    private static final List<String> SUBCOMMANDS = List.of("reload", "stats", "audit", "trace");
+    private static final List<String> TRACE_ACTIONS = List.of("on", "off", "sample", "dump");
+    private static final int TOP_MATERIALS = 5;
+    private static final int DEFAULT_AUDIT_ENTRIES = 10;
+    private static final int MAX_AUDIT_ENTRIES = 100;
+
+    private final DropStop plugin;
+
+    /**
+     * Create a new command executor.
+     *
+     * @param plugin The plugin instance.
+     */
+    public DropStopCommand(@Nonnull DropStop plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean onCommand(@Nonnull CommandSender sender, @Nonnull Command command, @Nonnull String label, @Nonnull String[] args) {
+        if (args.length == 0) {
+            return false;
+        }
+
+        switch (args[0].toLowerCase(Locale.ROOT)) {
+            case "reload" -> {
+                sender.sendMessage("[DropStop] Reloading the configuration...");
+                plugin.reloadPolicyAsync(sender);
+                return true;
+            }
+            case "stats" -> {
+                if (args.length > 1) {
+                    sendPlayerStats(sender, args[1]);
+                } else {
+                    sendStats(sender);
+                }
+                return true;
+            }
+            case "audit" -> {
+                sendAuditEntries(sender, args);
+                return true;
+            }
+            case "trace" -> {
+                return trace(sender, args);
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    private void sendStats(@Nonnull CommandSender sender) {
+        DropMetrics metrics = plugin.getMetrics();
+        DropMetrics.Counters total = metrics.getTotal();
+        LatencyHistogram latency = metrics.getLatency();
+
+        sender.sendMessage("[DropStop] Drops: " + total.getBlocked() + " blocked, " + total.getAllowed() + " allowed, " + total.getWarned() + " warned.");
+        sender.sendMessage("[DropStop] Handler latency: mean " + NumberUtils.formatNanos(latency.mean())
+                + ", p50 " + NumberUtils.formatNanos(latency.percentile(0.5))
+                + ", p99 " + NumberUtils.formatNanos(latency.percentile(0.99))
+                + ", max " + NumberUtils.formatNanos(latency.max()) + " over " + latency.count() + " events.");
+
+        for (Map.Entry<UUID, DropMetrics.Counters> entry : metrics.getWorlds().entrySet()) {
+            World world = plugin.getServer().getWorld(entry.getKey());
+            String name = world == null ? entry.getKey().toString() : world.getName();
+            DropMetrics.Counters counters = entry.getValue();
+            sender.sendMessage("[DropStop]  - " + name + ": " + counters.getBlocked() + " blocked, " + counters.getAllowed() + " allowed, " + counters.getWarned() + " warned.");
+        }
+
+        Material[] top = metrics.topBlockedMaterials(TOP_MATERIALS);
+        if (top.length > 0) {
+            StringBuilder builder = new StringBuilder("[DropStop] Most blocked: ");
+            for (int i = 0; i < top.length; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                builder.append(top[i].name()).append(" (").append(metrics.getMaterial(top[i]).getBlocked()).append(')');
+            }
+            sender.sendMessage(builder.toString());
+        }
+
+        sender.sendMessage("[DropStop] Players on warning cooldown: " + plugin.getCooldowns().size() + ".");
+        if (plugin.getPolicy().isRateLimited()) {
+            sender.sendMessage("[DropStop] Rate limited drops: " + metrics.getRateLimited() + ".");
+        }
+        if (plugin.getPolicy().isDropCompaction()) {
+            sender.sendMessage("[DropStop] Drops merged with nearby stacks: " + metrics.getCompacted() + ".");
+        }
+        if (plugin.getPolicy().getChunkItemLimit() > 0) {
+            sender.sendMessage("[DropStop] Drops blocked by the chunk item limit: " + metrics.getChunkLimited() + ", chunks with items: " + plugin.getChunkItems().size() + ".");
+        }
+        if (plugin.getPolicy().getLagSettings().enabled()) {
+            LagMonitor lag = plugin.getLagMonitor();
+            sender.sendMessage("[DropStop] Lag protection: " + (lag.isLagging() ? "blocking drops" : "idle") + " (MSPT: " + LagMonitor.format(lag.getMspt()) + ", TPS: " + LagMonitor.format(lag.getTps())
+                    + "), " + lag.getTransitions() + " state changes, " + metrics.getLagBlocked() + " drops blocked.");
+        }
+
+        AuditLog audit = plugin.getAuditLog();
+        if (audit != null) {
+            sender.sendMessage("[DropStop] Audit log: " + audit.getWritten() + " written, " + audit.getDropped() + " dropped.");
+        }
+
+        PolicySync sync = plugin.getPolicySync();
+        if (sync != null) {
+            sender.sendMessage("[DropStop] Network (" + sync.getRole().name().toLowerCase(Locale.ROOT) + "): settings version " + sync.getVersion()
+                    + ", " + sync.getSent() + " sent, " + sync.getReceived() + " received, " + sync.getRejected() + " rejected.");
+        }
+    }
+
+    private void sendPlayerStats(@Nonnull CommandSender sender, @Nonnull String name) {
+        PlayerStatsStore store = plugin.getPlayerStats();
+        if (store == null) {
+            sender.sendMessage("[DropStop] Player statistics are disabled.");
+            return;
+        }
+
+        findPlayer(name, id -> {
+            PlayerStats stats = id == null ? null : store.get(id);
+            if (stats == null) {
+                sender.sendMessage("[DropStop] No drops have been recorded for " + name + ".");
+                return;
+            }
+
+            sender.sendMessage("[DropStop] " + name + ": " + stats.attempts() + " drops, " + stats.blocked() + " blocked, "
+                    + stats.warned() + " warned, last drop at " + Instant.ofEpochMilli(stats.lastAttempt()) + ".");
+        });
+    }
+
+    /**
+     * Find a player by name or unique id and pass the unique id to the given callback on the global thread.
+     *
+     * <p>Online players and unique ids are resolved right away. Offline players are searched among the
+     * players that have joined before, since {@code Server#getOfflinePlayerIfCached} is only available on
+     * Paper. Listing them reads the player data directory, so the search runs on an asynchronous task.
+     *
+     * @param name     The name of the player, ignoring case, or its unique id.
+     * @param callback The callback that receives the unique id, or {@code null} if no player with this name has joined.
+     */
+    private void findPlayer(@Nonnull String name, @Nonnull Consumer<UUID> callback) {
+        Player online = plugin.getServer().getPlayerExact(name);
+        if (online != null) {
+            callback.accept(online.getUniqueId());
+            return;
+        }
+
+        UUID id = parseUniqueId(name);
+        if (id != null) {
+            callback.accept(id);
+            return;
+        }
+
+        plugin.getTaskScheduler().runAsync(() -> {
+            UUID found = null;
+            for (OfflinePlayer player : plugin.getServer().getOfflinePlayers()) {
+                if (name.equalsIgnoreCase(player.getName())) {
+                    found = player.getUniqueId();
+                    break;
+                }
+            }
+
+            UUID result = found;
+            plugin.getTaskScheduler().runGlobal(() -> callback.accept(result));
+        });
+    }
+
+    private static @Nullable UUID parseUniqueId(@Nonnull String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private void sendAuditEntries(@Nonnull CommandSender sender, @Nonnull String[] args) {
+        AuditLog audit = plugin.getAuditLog();
+        if (audit == null) {
+            sender.sendMessage("[DropStop] The audit log is disabled.");
+            return;
+        }
+
+        String player = null;
+        int limit = DEFAULT_AUDIT_ENTRIES;
+        for (int i = 1; i < args.length; i++) {
+            try {
+                limit = Math.max(1, Math.min(MAX_AUDIT_ENTRIES, Integer.parseInt(args[i])));
+            } catch (NumberFormatException ex) {
+                player = args[i];
+            }
+        }
+
+        Path directory = audit.getDirectory();
+        String filter = player;
+        int count = limit;
+        plugin.getTaskScheduler().runAsync(() -> {
+            List<String> lines = new ArrayList<>();
+            try {
+                List<String> entries = AuditLog.query(directory, filter, count);
+                if (entries.isEmpty()) {
+                    lines.add("[DropStop] No blocked drops have been recorded" + (filter == null ? "." : " for " + filter + "."));
+                }
+                for (String entry : entries) {
+                    lines.add("[DropStop] " + AuditLog.field(entry, "time") + " " + AuditLog.field(entry, "player")
+                            + " dropped " + AuditLog.field(entry, "amount") + "x " + AuditLog.field(entry, "material")
+                            + " in " + AuditLog.field(entry, "world") + " at " + AuditLog.field(entry, "x")
+                            + ", " + AuditLog.field(entry, "y") + ", " + AuditLog.field(entry, "z"));
+                }
+            } catch (IOException ex) {
+                plugin.getLogger().log(Level.WARNING, "Could not read the audit log.", ex);
+                lines.add("[DropStop] Could not read the audit log: " + ex.getMessage());
+            }
+
+            plugin.getTaskScheduler().runGlobal(() -> lines.forEach(sender::sendMessage));
+        });
+    }
+
+    private boolean trace(@Nonnull CommandSender sender, @Nonnull String[] args) {
+        DecisionTracer tracer = plugin.getTracer();
+        if (args.length == 1) {
+            sender.sendMessage("[DropStop] Tracing: " + (tracer.getSampleRate() > 0 ? "1 in " + tracer.getSampleRate() + " drops" : "no sampling")
+                    + ", " + tracer.getTracedPlayers().size() + " traced players, " + tracer.getRing().getRecorded() + " decisions recorded.");
+            return true;
+        }
+
+        switch (args[1].toLowerCase(Locale.ROOT)) {
+            case "on", "off" -> {
+                boolean enabled = args[1].equalsIgnoreCase("on");
+                if (args.length > 2) {
+                    String name = args[2];
+                    findPlayer(name, id -> {
+                        if (id == null) {
+                            sender.sendMessage("[DropStop] Unknown player " + name + ".");
+                            return;
+                        }
+                        tracer.setTraced(id, enabled);
+                        sender.sendMessage("[DropStop] Tracing the drops of " + name + (enabled ? " enabled." : " disabled."));
+                    });
+                } else if (enabled) {
+                    tracer.setSampleRate(1);
+                    sender.sendMessage("[DropStop] Tracing all drops.");
+                } else {
+                    tracer.disable();
+                    sender.sendMessage("[DropStop] Tracing disabled.");
+                }
+            }
+            case "sample" -> {
+                int rate;
+                try {
+                    rate = args.length > 2 ? Integer.parseInt(args[2]) : -1;
+                } catch (NumberFormatException ex) {
+                    rate = -1;
+                }
+                if (rate < 0) {
+                    sender.sendMessage("[DropStop] Usage: /dropstop trace sample <n>, to trace one in n drops or 0 to stop sampling.");
+                    return true;
+                }
+                tracer.setSampleRate(rate);
+                sender.sendMessage("[DropStop] " + (rate == 0 ? "Sampling stopped." : "Tracing 1 in " + rate + " drops."));
+            }
+            case "dump" -> {
+                dumpTrace(sender, tracer);
+                return true;
+            }
+            default -> {
+                return false;
+            }
+        }
+
+        plugin.refreshFeatureListeners();
+        return true;
+    }
+
+    private void dumpTrace(@Nonnull CommandSender sender, @Nonnull DecisionTracer tracer) {
+        Map<UUID, String> players = new HashMap<>();
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            players.put(player.getUniqueId(), player.getName());
+        }
+        Map<UUID, String> worlds = new HashMap<>();
+        for (World world : plugin.getServer().getWorlds()) {
+            worlds.put(world.getUID(), world.getName());
+        }
+
+        Path file = new File(plugin.getDataFolder(), "traces").toPath().resolve("trace-" + System.currentTimeMillis() + ".log");
+        plugin.getTaskScheduler().runAsync(() -> {
+            String message;
+            try {
+                int count = tracer.dump(file, players, worlds);
+                message = "[DropStop] Wrote " + count + " traced decisions to " + file + ".";
+            } catch (IOException ex) {
+                plugin.getLogger().log(Level.WARNING, "Could not write the decision trace.", ex);
+                message = "[DropStop] Could not write the decision trace: " + ex.getMessage();
+            }
+
+            String result = message;
+            plugin.getTaskScheduler().runGlobal(() -> sender.sendMessage(result));
+        });
+    }
+
+    @Override
+    public @Nonnull List<String> onTabComplete(@Nonnull CommandSender sender, @Nonnull Command command, @Nonnull String alias, @Nonnull String[] args) {
+        List<String> completions = new ArrayList<>();
+        if (args.length == 1) {
+            String prefix = args[0].toLowerCase(Locale.ROOT);
+            for (String subcommand : SUBCOMMANDS) {
+                if (subcommand.startsWith(prefix)) {
+                    completions.add(subcommand);
+                }
+            }
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("trace")) {
+            String prefix = args[1].toLowerCase(Locale.ROOT);
+            for (String action : TRACE_ACTIONS) {
+                if (action.startsWith(prefix)) {
+                    completions.add(action);
+                }
+            }
+        }
+        return completions;
+    }
+}
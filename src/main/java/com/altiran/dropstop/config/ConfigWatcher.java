@@ -0,0 +1,119 @@
+package com.altiran.dropstop.config;
+
+import jakarta.annotation.Nonnull;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches the configuration file on a background thread and triggers a reload when it changes.
+ */
+public final class ConfigWatcher implements Runnable {
+    private static final long DEBOUNCE_MILLIS = 500L;
+
+    private final Path file;
+    private final Runnable onChange;
+    private final Logger logger;
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Create a new watcher for the given file.
+     *
+     * @param file     The configuration file to watch.
+     * @param onChange The action to run after the file has been modified.
+     * @param logger   The logger to report errors to.
+     */
+    public ConfigWatcher(@Nonnull Path file, @Nonnull Runnable onChange, @Nonnull Logger logger) {
+        this.file = file.toAbsolutePath();
+        this.onChange = onChange;
+        this.logger = logger;
+    }
+
+    /**
+     * Start watching the file on a new daemon thread.
+     *
+     * @throws IOException If the watch service cannot be created.
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            return;
+        }
+
+        watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        thread = new Thread(this, "DropStop-ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop watching the file. Has no effect if the watcher is not running.
+     */
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+
+        try {
+            watchService.close();
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not close the configuration file watcher.", ex);
+        }
+
+        thread.interrupt();
+        thread = null;
+        watchService = null;
+    }
+
+    public synchronized boolean isRunning() {
+        return thread != null;
+    }
+
+    @Override
+    public void run() {
+        WatchService service;
+        synchronized (this) {
+            service = watchService;
+        }
+
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path changedPath && file.getFileName().equals(changedPath)) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+
+                if (changed) {
+                    // Editors often write a file in several steps, wait for them to finish
+                    Thread.sleep(DEBOUNCE_MILLIS);
+                    WatchKey pending = service.poll();
+                    if (pending != null) {
+                        pending.pollEvents();
+                        pending.reset();
+                    }
+
+                    onChange.run();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // The watcher has been stopped
+        }
+    }
+}
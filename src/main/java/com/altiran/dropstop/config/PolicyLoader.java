@@ -0,0 +1,36 @@
+package com.altiran.dropstop.config;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.bukkit.configuration.Configuration;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Utility class for reading the configuration file off the main thread.
+ */
+public final class PolicyLoader {
+    /**
+     * Read and parse the given configuration file. The caller compiles it into a policy.
+     *
+     * <p>This method does blocking I/O and must not be called on the main thread.
+     *
+     * @param file     The configuration file to read.
+     * @param defaults The default values to fall back to, usually the bundled configuration.
+     * @return The parsed configuration.
+     * @throws IOException                   If the file cannot be read.
+     * @throws InvalidConfigurationException If the file is not valid YAML.
+     */
+    public static @Nonnull YamlConfiguration read(@Nonnull File file, @Nullable Configuration defaults) throws IOException, InvalidConfigurationException {
+        YamlConfiguration config = new YamlConfiguration();
+        config.load(file);
+
+        if (defaults != null) {
+            config.setDefaults(defaults);
+        }
+        return config;
+    }
+}
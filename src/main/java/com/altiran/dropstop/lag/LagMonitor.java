@@ -0,0 +1,176 @@
+package com.altiran.dropstop.lag;
+
+import com.altiran.dropstop.scheduler.TaskScheduler;
+import com.altiran.dropstop.utils.NumberUtils;
+import io.papermc.lib.PaperLib;
+import jakarta.annotation.Nonnull;
+import org.bukkit.Server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Samples the tick time of the server and tells whether drops should be blocked because it is lagging.
+ *
+ * <p>On Paper, the average tick time (MSPT) and TPS of the server are read once per second. Elsewhere,
+ * the interval between two ticks is measured by a task running every tick, which only yields the TPS.
+ * Drops are blocked once a threshold is crossed and allowed again once the server has recovered below
+ * a lower threshold, so the state does not flap. The drop handler only reads a single volatile flag.
+ */
+public final class LagMonitor {
+    private static final long SAMPLE_PERIOD_TICKS = 20L; // 1 second
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+    private static final double MAX_TPS = 20.0;
+    private static final double SMOOTHING = 0.05; // Weight of a single tick interval in the moving average
+
+    private final Server server;
+    private final TaskScheduler scheduler;
+    private final Logger logger;
+    private final AtomicLong transitions = new AtomicLong();
+    private volatile boolean lagging;
+    private volatile double mspt = Double.NaN;
+    private volatile double tps = MAX_TPS;
+    private LagSettings settings = LagSettings.DISABLED;
+    private TaskScheduler.Task task;
+    private boolean paperApi;
+    private long lastTick;
+    private double averageInterval;
+    private int ticks;
+
+    /**
+     * Create a new lag monitor.
+     *
+     * @param server    The server to sample.
+     * @param scheduler The scheduler to run the sampler with.
+     * @param logger    The logger to report state changes to.
+     */
+    public LagMonitor(@Nonnull Server server, @Nonnull TaskScheduler scheduler, @Nonnull Logger logger) {
+        this.server = server;
+        this.scheduler = scheduler;
+        this.logger = logger;
+    }
+
+    /**
+     * Apply new settings, starting or stopping the sampler as needed. Must be called on the main thread or global region.
+     *
+     * @param settings The new settings.
+     */
+    public void configure(@Nonnull LagSettings settings) {
+        if (settings.equals(this.settings)) {
+            return;
+        }
+
+        stop();
+        this.settings = settings;
+        if (settings.enabled()) {
+            paperApi = PaperLib.isPaper();
+            scheduleSampler();
+        }
+    }
+
+    /**
+     * Stop sampling and allow drops again.
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        settings = LagSettings.DISABLED;
+        lagging = false;
+        mspt = Double.NaN;
+        tps = MAX_TPS;
+    }
+
+    private void scheduleSampler() {
+        if (paperApi) {
+            task = scheduler.runGlobalTimer(this::samplePaper, SAMPLE_PERIOD_TICKS, SAMPLE_PERIOD_TICKS);
+        } else {
+            lastTick = 0;
+            averageInterval = 0;
+            ticks = 0;
+            task = scheduler.runGlobalTimer(this::sampleTick, 1L, 1L);
+        }
+    }
+
+    private void samplePaper() {
+        try {
+            sample(server.getAverageTickTime(), server.getTPS()[0]);
+        } catch (UnsupportedOperationException ex) {
+            // Region-threaded servers have no global tick time, measure the global region instead
+            task.cancel();
+            paperApi = false;
+            scheduleSampler();
+        }
+    }
+
+    private void sampleTick() {
+        long now = System.nanoTime();
+        if (lastTick != 0) {
+            long interval = now - lastTick;
+            averageInterval = averageInterval == 0 ? interval : averageInterval + (interval - averageInterval) * SMOOTHING;
+        }
+        lastTick = now;
+
+        if (++ticks % SAMPLE_PERIOD_TICKS == 0 && averageInterval > 0) {
+            // The interval between ticks is at least 50 ms even on an idle server, so it says nothing about MSPT
+            sample(Double.NaN, Math.min(MAX_TPS, NANOS_PER_SECOND / averageInterval));
+        }
+    }
+
+    /**
+     * Feed a sample of the server performance, switching the state if a threshold is crossed.
+     *
+     * @param mspt The average tick time in milliseconds, or {@link Double#NaN} if unknown.
+     * @param tps  The ticks per second.
+     */
+    public void sample(double mspt, double tps) {
+        this.mspt = mspt;
+        this.tps = tps;
+
+        LagSettings current = settings;
+        if (!lagging && ((!Double.isNaN(mspt) && mspt > current.blockAboveMspt()) || tps < current.blockBelowTps())) {
+            lagging = true;
+            transitions.incrementAndGet();
+            logger.log(Level.WARNING, "The server is lagging (MSPT: {0}, TPS: {1}), item drops are blocked until it recovers.", new Object[]{format(mspt), format(tps)});
+        } else if (lagging && (Double.isNaN(mspt) || mspt < current.resumeBelowMspt()) && tps > current.resumeAboveTps()) {
+            lagging = false;
+            transitions.incrementAndGet();
+            logger.log(Level.INFO, "The server has recovered (MSPT: {0}, TPS: {1}), item drops are allowed again.", new Object[]{format(mspt), format(tps)});
+        }
+    }
+
+    /**
+     * Format a sampled value for display, with {@code n/a} if it is unknown.
+     */
+    public static @Nonnull String format(double value) {
+        return Double.isNaN(value) ? "n/a" : NumberUtils.roundDecimalNumber(value);
+    }
+
+    /**
+     * Check whether drops are currently blocked because the server is lagging.
+     */
+    public boolean isLagging() {
+        return lagging;
+    }
+
+    /**
+     * Get the last sampled average tick time in milliseconds, or {@link Double#NaN} if unknown.
+     */
+    public double getMspt() {
+        return mspt;
+    }
+
+    public double getTps() {
+        return tps;
+    }
+
+    /**
+     * Get the number of times drops have been blocked or allowed again because of lag.
+     */
+    public long getTransitions() {
+        return transitions.get();
+    }
+}
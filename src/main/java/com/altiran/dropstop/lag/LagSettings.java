@@ -0,0 +1,44 @@
+package com.altiran.dropstop.lag;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * Settings of the lag protection.
+ *
+ * @param enabled         Whether drops are blocked automatically while the server is lagging.
+ * @param blockAboveMspt  The average tick time in milliseconds above which drops are blocked.
+ * @param resumeBelowMspt The average tick time in milliseconds below which drops are allowed again.
+ * @param blockBelowTps   The ticks per second below which drops are blocked.
+ * @param resumeAboveTps  The ticks per second above which drops are allowed again.
+ */
+public record LagSettings(boolean enabled, double blockAboveMspt, double resumeBelowMspt, double blockBelowTps, double resumeAboveTps) {
+    /**
+     * The settings used when the lag protection is not configured.
+     */
+    public static final LagSettings DISABLED = new LagSettings(false, 45.0, 35.0, 18.0, 19.5);
+
+    /**
+     * Read the settings from the given configuration section.
+     *
+     * <p>The thresholds to allow drops again are capped by the ones to block them, so the state can't flap.
+     *
+     * @param section The {@code lag-protection} section, or {@code null} if it is missing.
+     * @return The settings.
+     */
+    public static @Nonnull LagSettings compile(@Nullable ConfigurationSection section) {
+        if (section == null) {
+            return DISABLED;
+        }
+
+        double blockAboveMspt = section.getDouble("block-above-mspt", DISABLED.blockAboveMspt);
+        double blockBelowTps = section.getDouble("block-below-tps", DISABLED.blockBelowTps);
+        return new LagSettings(
+                section.getBoolean("enabled", false),
+                blockAboveMspt,
+                Math.min(blockAboveMspt, section.getDouble("resume-below-mspt", DISABLED.resumeBelowMspt)),
+                blockBelowTps,
+                Math.max(blockBelowTps, section.getDouble("resume-above-tps", DISABLED.resumeAboveTps)));
+    }
+}
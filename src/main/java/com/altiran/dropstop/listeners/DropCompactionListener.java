@@ -0,0 +1,69 @@
+package com.altiran.dropstop.listeners;
+
+import com.altiran.dropstop.DropStop;
+import com.altiran.dropstop.chunk.RecentDrops;
+import com.altiran.dropstop.policy.DropPolicy;
+import jakarta.annotation.Nonnull;
+import org.bukkit.Location;
+import org.bukkit.entity.Item;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.UUID;
+
+/**
+ * Merges allowed drops with similar stacks that were recently dropped nearby, to keep the number of item entities down.
+ *
+ * <p>The new drop has not been added to the world yet when the event is called, so it absorbs the
+ * nearby stack, which is removed, instead of the other way round. This runs at MONITOR, once the drop
+ * can no longer be cancelled, because a cancelled drop returns its stack, including the absorbed items,
+ * to the inventory of the player. Only registered while drop compaction is enabled.
+ */
+public final class DropCompactionListener implements Listener {
+    private final DropStop plugin;
+    private final RecentDrops recentDrops;
+    private final ThreadLocal<Location> dropLocation = ThreadLocal.withInitial(() -> new Location(null, 0, 0, 0));
+    private final ThreadLocal<Location> candidateLocation = ThreadLocal.withInitial(() -> new Location(null, 0, 0, 0));
+
+    /**
+     * Create a new drop compaction listener.
+     *
+     * @param plugin The plugin instance.
+     */
+    public DropCompactionListener(@Nonnull DropStop plugin) {
+        this.plugin = plugin;
+        this.recentDrops = plugin.getRecentDrops();
+    }
+
+    /**
+     * Merge an allowed drop with a nearby stack of the same kind.
+     *
+     * @param e The event object.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerItemDrop(PlayerDropItemEvent e) {
+        DropPolicy current = plugin.getPolicy();
+        Item dropped = e.getItemDrop();
+        UUID world = dropped.getWorld().getUID();
+        Location location = dropped.getLocation(dropLocation.get());
+        ItemStack stack = dropped.getItemStack();
+
+        Item target = recentDrops.find(world, location, stack, current.getDropCompactionRadiusSquared(), candidateLocation.get());
+        if (target != null) {
+            Location targetLocation = target.getLocation(candidateLocation.get());
+            stack.setAmount(stack.getAmount() + target.getItemStack().getAmount());
+            dropped.setItemStack(stack);
+            target.remove();
+
+            if (current.getChunkItemLimit() > 0) {
+                plugin.getChunkItems().add(world, targetLocation.getBlockX() >> 4, targetLocation.getBlockZ() >> 4, -1);
+            }
+            plugin.getMetrics().recordCompacted();
+        }
+
+        recentDrops.add(world, location, dropped);
+    }
+}
@@ -0,0 +1,83 @@
+package com.altiran.dropstop.listeners;
+
+import com.altiran.dropstop.policy.DropPolicy;
+import jakarta.annotation.Nonnull;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Registers the listener of each feature only while the active policy enables it.
+ *
+ * <p>Events that no enabled feature needs are then never dispatched to the plugin at all, instead
+ * of reaching a handler that looks up the policy just to return. The registrations are updated each
+ * time a policy is published.
+ */
+public final class FeatureListeners {
+    private final Plugin plugin;
+    private final List<Feature> features = new ArrayList<>();
+
+    /**
+     * Create a new, empty set of feature listeners.
+     *
+     * @param plugin The plugin to register the listeners for.
+     */
+    public FeatureListeners(@Nonnull Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Add the listener of a feature. It is registered on the next {@link #update(DropPolicy)} that enables it.
+     *
+     * @param listener The listener of the feature.
+     * @param enabled  Whether the feature is enabled by a policy.
+     */
+    public void add(@Nonnull Listener listener, @Nonnull Predicate<DropPolicy> enabled) {
+        features.add(new Feature(listener, enabled));
+    }
+
+    /**
+     * Register the listeners of the features that the given policy enables and unregister the others.
+     * Must be called on the main thread or global region.
+     *
+     * @param policy The policy that has been published.
+     */
+    public void update(@Nonnull DropPolicy policy) {
+        for (Feature feature : features) {
+            boolean enabled = feature.enabled.test(policy);
+            if (enabled && !feature.registered) {
+                plugin.getServer().getPluginManager().registerEvents(feature.listener, plugin);
+            } else if (!enabled && feature.registered) {
+                HandlerList.unregisterAll(feature.listener);
+            }
+            feature.registered = enabled;
+        }
+    }
+
+    /**
+     * Unregister all listeners, e.g. when the plugin is disabled.
+     */
+    public void unregisterAll() {
+        for (Feature feature : features) {
+            if (feature.registered) {
+                HandlerList.unregisterAll(feature.listener);
+                feature.registered = false;
+            }
+        }
+    }
+
+    private static final class Feature {
+        private final Listener listener;
+        private final Predicate<DropPolicy> enabled;
+        private boolean registered;
+
+        private Feature(@Nonnull Listener listener, @Nonnull Predicate<DropPolicy> enabled) {
+            this.listener = listener;
+            this.enabled = enabled;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.altiran.dropstop.listeners;
+
+import com.altiran.dropstop.DropStop;
+import com.altiran.dropstop.chunk.ChunkItemCounter;
+import jakarta.annotation.Nonnull;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.ItemDespawnEvent;
+import org.bukkit.event.entity.ItemMergeEvent;
+import org.bukkit.event.entity.ItemSpawnEvent;
+import org.bukkit.event.inventory.InventoryPickupItemEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
+
+/**
+ * Keeps the item entity counts per chunk up to date while items appear and disappear.
+ *
+ * <p>Only registered while the chunk item limit is enabled.
+ */
+public final class ItemEntityListener implements Listener {
+    private final ChunkItemCounter counter;
+    private final ThreadLocal<Location> scratchLocation = ThreadLocal.withInitial(() -> new Location(null, 0, 0, 0));
+
+    /**
+     * Create a new item entity listener.
+     *
+     * @param plugin The plugin instance.
+     */
+    public ItemEntityListener(@Nonnull DropStop plugin) {
+        this.counter = plugin.getChunkItems();
+    }
+
+    private void add(@Nonnull Entity entity, int delta) {
+        Location location = entity.getLocation(scratchLocation.get());
+        counter.add(entity.getWorld().getUID(), location.getBlockX() >> 4, location.getBlockZ() >> 4, delta);
+    }
+
+    /**
+     * Count an item that appeared in the world.
+     *
+     * @param e The event object.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemSpawn(ItemSpawnEvent e) {
+        add(e.getEntity(), 1);
+    }
+
+    /**
+     * Stop counting an item that despawned.
+     *
+     * @param e The event object.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemDespawn(ItemDespawnEvent e) {
+        add(e.getEntity(), -1);
+    }
+
+    /**
+     * Stop counting an item that has been picked up completely by an entity.
+     *
+     * @param e The event object.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityPickupItem(EntityPickupItemEvent e) {
+        if (e.getRemaining() == 0) {
+            add(e.getItem(), -1);
+        }
+    }
+
+    /**
+     * Stop counting an item that has been picked up by a hopper.
+     *
+     * @param e The event object.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryPickupItem(InventoryPickupItemEvent e) {
+        add(e.getItem(), -1);
+    }
+
+    /**
+     * Stop counting an item that merged into another one.
+     *
+     * @param e The event object.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemMerge(ItemMergeEvent e) {
+        add(e.getEntity(), -1);
+    }
+
+    /**
+     * Count the items of a chunk whose entities have been loaded.
+     *
+     * @param e The event object.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent e) {
+        Chunk chunk = e.getChunk();
+        counter.set(chunk.getWorld().getUID(), chunk.getX(), chunk.getZ(), ChunkItemCounter.countItems(e.getEntities()));
+    }
+
+    /**
+     * Stop tracking a chunk whose entities have been unloaded.
+     *
+     * @param e The event object.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesUnload(EntitiesUnloadEvent e) {
+        Chunk chunk = e.getChunk();
+        counter.set(chunk.getWorld().getUID(), chunk.getX(), chunk.getZ(), 0);
+    }
+}
@@ -0,0 +1,47 @@
+package com.altiran.dropstop.listeners;
+
+import com.altiran.dropstop.DropStop;
+import com.altiran.dropstop.metrics.DropMetrics;
+import jakarta.annotation.Nonnull;
+import org.bukkit.entity.Item;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerDropItemEvent;
+
+/**
+ * Blocks items from being dropped by players, e.g. by pressing Q.
+ *
+ * <p>Only registered while a setting can block a drop.
+ */
+public final class PlayerDropListener implements Listener {
+    private final DropStop plugin;
+    private final DropMetrics metrics;
+
+    /**
+     * Create a new player drop listener.
+     *
+     * @param plugin The plugin instance.
+     */
+    public PlayerDropListener(@Nonnull DropStop plugin) {
+        this.plugin = plugin;
+        this.metrics = plugin.getMetrics();
+    }
+
+    /**
+     * Handles the event when a player tries to drop an item.
+     *
+     * @param e The event object.
+     */
+    @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
+    public void onPlayerItemDrop(PlayerDropItemEvent e) {
+        long start = System.nanoTime();
+        Item item = e.getItemDrop();
+
+        if (plugin.checkDrop(e.getPlayer(), item, item.getItemStack())) {
+            e.setCancelled(true);
+        }
+
+        metrics.recordLatency(System.nanoTime() - start);
+    }
+}
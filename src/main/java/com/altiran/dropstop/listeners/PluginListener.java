@@ -0,0 +1,37 @@
+package com.altiran.dropstop.listeners;
+
+import com.altiran.dropstop.DropStop;
+import jakarta.annotation.Nonnull;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+
+/**
+ * Removes the drop predicates of other plugins when they are disabled.
+ */
+public final class PluginListener implements Listener {
+    private final DropStop plugin;
+
+    /**
+     * Create a new plugin listener.
+     *
+     * @param plugin The plugin instance.
+     */
+    public PluginListener(@Nonnull DropStop plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Remove the predicates of the plugin that has been disabled.
+     *
+     * @param e The event object.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(PluginDisableEvent e) {
+        if (e.getPlugin() != plugin && !plugin.getDropPredicates().isEmpty()) {
+            plugin.getDropPredicates().removeAll(e.getPlugin());
+            plugin.refreshFeatureListeners();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.altiran.dropstop.listeners;
+
+import com.altiran.dropstop.DropStop;
+import com.altiran.dropstop.message.LocaleCache;
+import com.altiran.dropstop.message.LocalizedWarnings;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLocaleChangeEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Maintains the per-player state of the plugin while players join, change worlds and leave the server.
+ */
+public final class SessionListener implements Listener {
+    private final DropStop plugin;
+
+    /**
+     * Create a new session listener.
+     *
+     * @param plugin The plugin instance.
+     */
+    public SessionListener(@Nonnull DropStop plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Resolve the bypass permissions and the warning message of the player that joined the server.
+     *
+     * @param e The event object.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent e) {
+        plugin.getBypassCache().refresh(e.getPlayer());
+        LocalizedWarnings warnings = getLocalizedWarnings();
+        if (warnings != null) {
+            plugin.getLocaleCache().update(e.getPlayer().getUniqueId(), LocaleCache.getLocale(e.getPlayer()), warnings);
+        }
+    }
+
+    /**
+     * Resolve the warning message again for the new client language of the player.
+     *
+     * <p>The language is read as a string, as {@code PlayerLocaleChangeEvent#locale()} only exists on Paper.
+     *
+     * @param e The event object.
+     */
+    @SuppressWarnings("deprecation")
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerLocaleChange(PlayerLocaleChangeEvent e) {
+        LocalizedWarnings warnings = getLocalizedWarnings();
+        if (warnings != null) {
+            plugin.getLocaleCache().update(e.getPlayer().getUniqueId(), e.getLocale(), warnings); // The player still reports the previous language
+        }
+    }
+
+    private @Nullable LocalizedWarnings getLocalizedWarnings() {
+        LocalizedWarnings warnings = plugin.getPolicy().getWarnings();
+        return warnings == null || warnings.size() == 0 ? null : warnings;
+    }
+
+    /**
+     * Resolve the bypass permissions again, as they can differ per world.
+     *
+     * @param e The event object.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent e) {
+        plugin.getBypassCache().refresh(e.getPlayer());
+    }
+
+    /**
+     * Evict the state of the player that left the server.
+     *
+     * @param e The event object.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent e) {
+        plugin.getCooldowns().remove(e.getPlayer().getUniqueId());
+        plugin.getBypassCache().remove(e.getPlayer().getUniqueId());
+        plugin.getWarningQueue().remove(e.getPlayer().getUniqueId());
+        plugin.getRateLimiter().remove(e.getPlayer().getUniqueId());
+        plugin.getLocaleCache().remove(e.getPlayer().getUniqueId());
+    }
+}
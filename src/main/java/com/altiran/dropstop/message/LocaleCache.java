@@ -0,0 +1,90 @@
+package com.altiran.dropstop.message;
+
+import jakarta.annotation.Nonnull;
+import org.bukkit.entity.Player;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The warning template of each online player, resolved from their client language.
+ *
+ * <p>Templates are resolved when a player joins or changes their language, so sending a warning is a
+ * single map lookup. Each entry remembers the messages it was resolved from, and is resolved again
+ * from the stored language the first time it is used after the configuration has been reloaded.
+ */
+public final class LocaleCache {
+    private final Map<UUID, Entry> players = new ConcurrentHashMap<>();
+
+    /**
+     * Resolve the template of a player for the given language.
+     *
+     * @param id       The unique id of the player.
+     * @param locale   The client language of the player, e.g. {@code pt_BR}.
+     * @param warnings The warning messages of the active policy.
+     */
+    public void update(@Nonnull UUID id, @Nonnull String locale, @Nonnull LocalizedWarnings warnings) {
+        resolve(id, locale, warnings);
+    }
+
+    private @Nonnull Entry resolve(@Nonnull UUID id, @Nonnull String locale, @Nonnull LocalizedWarnings warnings) {
+        Entry entry = new Entry(locale, warnings, warnings.resolve(locale));
+        players.put(id, entry);
+        return entry;
+    }
+
+    /**
+     * Get the template of a player, resolving it if the player is not cached yet or the messages have changed.
+     *
+     * @param player   The player.
+     * @param warnings The warning messages of the active policy.
+     * @return The template to warn the player with.
+     */
+    public @Nonnull WarningTemplate get(@Nonnull Player player, @Nonnull LocalizedWarnings warnings) {
+        if (warnings.size() == 0) {
+            return warnings.getDefaultTemplate();
+        }
+
+        Entry entry = players.get(player.getUniqueId());
+        if (entry == null) {
+            entry = resolve(player.getUniqueId(), getLocale(player), warnings);
+        } else if (entry.warnings != warnings) {
+            entry = resolve(player.getUniqueId(), entry.locale, warnings);
+        }
+        return entry.template;
+    }
+
+    /**
+     * Get the client language of a player, e.g. {@code pt_br}.
+     *
+     * <p>This uses the string based Bukkit method, as {@code Player#locale()} only exists on Paper.
+     *
+     * @param player The player.
+     * @return The client language.
+     */
+    @SuppressWarnings("deprecation")
+    public static @Nonnull String getLocale(@Nonnull Player player) {
+        return player.getLocale();
+    }
+
+    /**
+     * Remove the cached template of a player.
+     *
+     * @param id The unique id of the player.
+     */
+    public void remove(@Nonnull UUID id) {
+        players.remove(id);
+    }
+
+    public void clear() {
+        players.clear();
+    }
+
+    public int size() {
+        return players.size();
+    }
+
+    private record Entry(String locale, LocalizedWarnings warnings, WarningTemplate template) {
+    }
+}
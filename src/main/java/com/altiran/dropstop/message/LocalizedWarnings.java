@@ -0,0 +1,89 @@
+package com.altiran.dropstop.message;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pre-compiled warning messages for the client languages of players.
+ *
+ * <p>All messages are compiled into templates when the configuration is loaded. A language falls back
+ * to its base language, e.g. {@code pt_br} to {@code pt}, and then to the default message. Resolving the
+ * template of a language is only done when a player joins or changes their language, see {@link LocaleCache}.
+ */
+public final class LocalizedWarnings {
+    private final WarningTemplate defaultTemplate;
+    private final Map<String, WarningTemplate> templates;
+
+    private LocalizedWarnings(@Nonnull WarningTemplate defaultTemplate, @Nonnull Map<String, WarningTemplate> templates) {
+        this.defaultTemplate = defaultTemplate;
+        this.templates = templates;
+    }
+
+    /**
+     * Compile the warning messages of the given configuration section.
+     *
+     * @param defaultTemplate The template of the default message, for languages without a message of their own.
+     * @param section         The {@code warning-messages} section keyed by language, or {@code null} if it is missing.
+     * @param logger          The logger to report invalid entries to.
+     * @return The compiled messages.
+     */
+    public static @Nonnull LocalizedWarnings compile(@Nonnull WarningTemplate defaultTemplate, @Nullable ConfigurationSection section, @Nonnull Logger logger) {
+        if (section == null) {
+            return new LocalizedWarnings(defaultTemplate, Collections.emptyMap());
+        }
+
+        Map<String, WarningTemplate> templates = new HashMap<>();
+        for (String key : section.getKeys(false)) {
+            String message = section.getString(key);
+            if (message == null || message.isEmpty()) {
+                logger.log(Level.WARNING, "Invalid warning message for language {0}, using the default message instead.", key);
+                continue;
+            }
+            templates.put(normalize(key), WarningTemplate.compile(message));
+        }
+        return new LocalizedWarnings(defaultTemplate, Collections.unmodifiableMap(templates));
+    }
+
+    private static @Nonnull String normalize(@Nonnull String locale) {
+        return locale.trim().replace('-', '_').toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Resolve the template for a client language, following the fallback chain.
+     *
+     * @param locale The language of the client, e.g. {@code pt_BR}.
+     * @return The template of the language, its base language or the default message.
+     */
+    public @Nonnull WarningTemplate resolve(@Nonnull String locale) {
+        if (templates.isEmpty()) {
+            return defaultTemplate;
+        }
+
+        String key = normalize(locale);
+        WarningTemplate template = templates.get(key);
+        int separator = key.indexOf('_');
+        if (template == null && separator > 0) {
+            template = templates.get(key.substring(0, separator));
+        }
+        return template == null ? defaultTemplate : template;
+    }
+
+    public @Nonnull WarningTemplate getDefaultTemplate() {
+        return defaultTemplate;
+    }
+
+    /**
+     * Get the number of languages with a message of their own.
+     */
+    public int size() {
+        return templates.size();
+    }
+}
@@ -0,0 +1,37 @@
+package com.altiran.dropstop.message;
+
+import jakarta.annotation.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Where warning messages are shown to the player.
+ */
+public enum WarningDisplay {
+    /**
+     * Show each distinct warning in the chat.
+     */
+    CHAT,
+    /**
+     * Show the most recent warning above the hotbar.
+     */
+    ACTION_BAR;
+
+    /**
+     * Parse a display from its configuration value, such as {@code chat} or {@code action-bar}.
+     *
+     * @param value The configured value.
+     * @return The display, or {@code null} if the value is not valid.
+     */
+    public static @Nullable WarningDisplay parse(@Nullable String value) {
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.altiran.dropstop.message;
+
+import com.altiran.dropstop.scheduler.TaskScheduler;
+import jakarta.annotation.Nonnull;
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.TextComponent;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects the warnings of each player during a tick and delivers them once with the next task of the player.
+ *
+ * <p>Holding the drop key can trigger many warnings within a single tick. Instead of sending a packet
+ * for each of them, the first warning of a tick schedules a flush on the thread that owns the player,
+ * and the warnings queued until then are merged, so identical ones are only sent once. On Bukkit the
+ * flush runs at the start of the next tick, on Folia with the next task of the region of the player.
+ */
+public final class WarningQueue {
+    private final TaskScheduler scheduler;
+    private final Map<UUID, Pending> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new warning queue.
+     *
+     * @param scheduler The scheduler to run the flush tasks with.
+     */
+    public WarningQueue(@Nonnull TaskScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Queue a warning for the given player.
+     *
+     * @param player  The player to warn.
+     * @param message The rendered warning message.
+     * @param display Where to show the warning.
+     */
+    public void enqueue(@Nonnull Player player, @Nonnull String message, @Nonnull WarningDisplay display) {
+        UUID id = player.getUniqueId();
+        Pending pending = entries.get(id);
+        if (pending == null) {
+            Pending created = new Pending();
+            pending = entries.putIfAbsent(id, created);
+            if (pending == null) {
+                pending = created;
+            }
+        }
+
+        boolean schedule;
+        synchronized (pending) {
+            schedule = pending.messages.isEmpty();
+            if (!pending.messages.contains(message)) {
+                pending.messages.add(message);
+            }
+            pending.display = display;
+        }
+
+        if (schedule) {
+            Pending target = pending;
+            scheduler.runForEntity(player, () -> flush(player, target));
+        }
+    }
+
+    private static void flush(@Nonnull Player player, @Nonnull Pending pending) {
+        String[] messages;
+        WarningDisplay display;
+        synchronized (pending) {
+            messages = pending.messages.toArray(new String[0]);
+            display = pending.display;
+            pending.messages.clear();
+        }
+
+        if (messages.length == 0) {
+            return;
+        }
+
+        if (display == WarningDisplay.ACTION_BAR) {
+            // The action bar only shows one message at a time, so only the most recent one is sent
+            sendActionBar(player, messages[messages.length - 1]);
+        } else {
+            for (String message : messages) {
+                player.sendMessage(message);
+            }
+        }
+    }
+
+    /**
+     * Send a message to the action bar of the player. {@code Player#sendActionBar} is only available on
+     * Paper, so the Spigot API is used, which Paper deprecates but still supports.
+     */
+    @SuppressWarnings("deprecation")
+    private static void sendActionBar(@Nonnull Player player, @Nonnull String message) {
+        player.spigot().sendMessage(ChatMessageType.ACTION_BAR, TextComponent.fromLegacyText(message));
+    }
+
+    /**
+     * Drop the queued warnings of the given player.
+     *
+     * @param id The unique id of the player.
+     */
+    public void remove(@Nonnull UUID id) {
+        entries.remove(id);
+    }
+
+    /**
+     * Get the number of players with a queue entry.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Pending {
+        private final List<String> messages = new ArrayList<>(1);
+        private WarningDisplay display = WarningDisplay.CHAT;
+    }
+}
@@ -0,0 +1,74 @@
+package com.altiran.dropstop.message;
+
+import jakarta.annotation.Nonnull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pre-compiled warning message with its colour codes translated and placeholders resolved into slots.
+ *
+ * <p>Rendering a message for a player only concatenates the literal segments with the player name,
+ * no regular expressions are involved.
+ */
+public final class WarningTemplate {
+    private static final char COLOR_CHAR = '&';
+    private static final char MC_CHAR = (char) 167;
+    private static final String PLAYER_PLACEHOLDER = "%player%";
+
+    private final String[] segments;
+    private final int literalLength;
+
+    private WarningTemplate(@Nonnull String[] segments) {
+        this.segments = segments;
+
+        int length = 0;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compile the given message into a template.
+     *
+     * <p>Every {@code &} is translated into the Minecraft formatting character and every {@code %player%}
+     * becomes a slot for the player name.
+     *
+     * @param message The raw message from the configuration.
+     * @return The compiled template.
+     */
+    public static @Nonnull WarningTemplate compile(@Nonnull String message) {
+        String translated = message.replace(COLOR_CHAR, MC_CHAR);
+        List<String> segments = new ArrayList<>();
+
+        int start = 0;
+        int index;
+        while ((index = translated.indexOf(PLAYER_PLACEHOLDER, start)) != -1) {
+            segments.add(translated.substring(start, index));
+            start = index + PLAYER_PLACEHOLDER.length();
+        }
+        segments.add(translated.substring(start));
+
+        return new WarningTemplate(segments.toArray(new String[0]));
+    }
+
+    /**
+     * Render the message for the given player name.
+     *
+     * @param playerName The name to fill into the placeholder slots.
+     * @return The rendered message.
+     */
+    public @Nonnull String render(@Nonnull String playerName) {
+        if (segments.length == 1) {
+            return segments[0];
+        }
+
+        StringBuilder builder = new StringBuilder(literalLength + (segments.length - 1) * playerName.length());
+        builder.append(segments[0]);
+        for (int i = 1; i < segments.length; i++) {
+            builder.append(playerName).append(segments[i]);
+        }
+        return builder.toString();
+    }
+}
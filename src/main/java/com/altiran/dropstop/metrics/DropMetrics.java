@@ -0,0 +1,214 @@
+package com.altiran.dropstop.metrics;
+
+import jakarta.annotation.Nonnull;
+import org.bukkit.Material;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the outcome of drop events and the latency of the drop handler.
+ *
+ * <p>All counters are striped {@link LongAdder}s. Material counters are indexed by ordinal and world
+ * counters are created once per world, so recording an outcome does not allocate.
+ */
+public final class DropMetrics {
+    private static final Material[] MATERIALS = Material.values();
+
+    private final Counters total = new Counters();
+    private final Counters[] materials = new Counters[MATERIALS.length];
+    private final Map<UUID, Counters> worlds = new ConcurrentHashMap<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder chunkLimited = new LongAdder();
+    private final LongAdder compacted = new LongAdder();
+    private final LongAdder lagBlocked = new LongAdder();
+
+    /**
+     * Create a new set of metrics with all counters at zero.
+     */
+    public DropMetrics() {
+        for (int i = 0; i < materials.length; i++) {
+            materials[i] = new Counters();
+        }
+    }
+
+    /**
+     * Record a blocked drop.
+     *
+     * @param world    The unique id of the world the drop happened in.
+     * @param material The material of the dropped item.
+     */
+    public void recordBlocked(@Nonnull UUID world, @Nonnull Material material) {
+        total.blocked.increment();
+        materials[material.ordinal()].blocked.increment();
+        world(world).blocked.increment();
+    }
+
+    /**
+     * Record an allowed drop.
+     *
+     * @param world    The unique id of the world the drop happened in.
+     * @param material The material of the dropped item.
+     */
+    public void recordAllowed(@Nonnull UUID world, @Nonnull Material material) {
+        total.allowed.increment();
+        materials[material.ordinal()].allowed.increment();
+        world(world).allowed.increment();
+    }
+
+    /**
+     * Record a warning sent to a player.
+     *
+     * @param world    The unique id of the world the drop happened in.
+     * @param material The material of the dropped item.
+     */
+    public void recordWarned(@Nonnull UUID world, @Nonnull Material material) {
+        total.warned.increment();
+        materials[material.ordinal()].warned.increment();
+        world(world).warned.increment();
+    }
+
+    /**
+     * Record a drop that was blocked because the player exceeded the drop rate limit.
+     *
+     * <p>The drop is recorded as blocked as well.
+     */
+    public void recordRateLimited() {
+        rateLimited.increment();
+    }
+
+    /**
+     * Record a drop that was blocked because the chunk already holds too many items.
+     *
+     * <p>The drop is recorded as blocked as well.
+     */
+    public void recordChunkLimited() {
+        chunkLimited.increment();
+    }
+
+    /**
+     * Record an allowed drop that was merged with a nearby stack instead of adding an item entity.
+     */
+    public void recordCompacted() {
+        compacted.increment();
+    }
+
+    /**
+     * Record a drop that was blocked because the server is lagging.
+     *
+     * <p>The drop is recorded as blocked as well.
+     */
+    public void recordLagBlocked() {
+        lagBlocked.increment();
+    }
+
+    /**
+     * Record the time the drop handler took for a single event.
+     *
+     * @param nanos The duration in nanoseconds.
+     */
+    public void recordLatency(long nanos) {
+        latency.record(nanos);
+    }
+
+    private @Nonnull Counters world(@Nonnull UUID world) {
+        Counters counters = worlds.get(world);
+        if (counters == null) {
+            counters = worlds.computeIfAbsent(world, id -> new Counters());
+        }
+        return counters;
+    }
+
+    public long getRateLimited() {
+        return rateLimited.sum();
+    }
+
+    public long getChunkLimited() {
+        return chunkLimited.sum();
+    }
+
+    public long getCompacted() {
+        return compacted.sum();
+    }
+
+    public long getLagBlocked() {
+        return lagBlocked.sum();
+    }
+
+    public @Nonnull Counters getTotal() {
+        return total;
+    }
+
+    public @Nonnull Counters getMaterial(@Nonnull Material material) {
+        return materials[material.ordinal()];
+    }
+
+    public @Nonnull Map<UUID, Counters> getWorlds() {
+        return worlds;
+    }
+
+    public @Nonnull LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Find the materials with the most blocked drops.
+     *
+     * @param limit The maximum number of materials to return.
+     * @return The materials ordered by their blocked count, highest first.
+     */
+    public @Nonnull Material[] topBlockedMaterials(int limit) {
+        Material[] top = new Material[Math.max(0, limit)];
+        long[] counts = new long[top.length];
+        int size = 0;
+
+        for (Material material : MATERIALS) {
+            long count = materials[material.ordinal()].getBlocked();
+            if (count == 0) {
+                continue;
+            }
+
+            int position = size;
+            while (position > 0 && counts[position - 1] < count) {
+                position--;
+            }
+
+            if (position < top.length) {
+                int end = Math.min(size, top.length - 1);
+                System.arraycopy(top, position, top, position + 1, end - position);
+                System.arraycopy(counts, position, counts, position + 1, end - position);
+                top[position] = material;
+                counts[position] = count;
+                size = Math.min(size + 1, top.length);
+            }
+        }
+
+        Material[] result = new Material[size];
+        System.arraycopy(top, 0, result, 0, size);
+        return result;
+    }
+
+    /**
+     * Outcome counters of a single breakdown.
+     */
+    public static final class Counters {
+        private final LongAdder blocked = new LongAdder();
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder warned = new LongAdder();
+
+        public long getBlocked() {
+            return blocked.sum();
+        }
+
+        public long getAllowed() {
+            return allowed.sum();
+        }
+
+        public long getWarned() {
+            return warned.sum();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.altiran.dropstop.network;
+
+import com.altiran.dropstop.scheduler.TaskScheduler;
+import jakarta.annotation.Nonnull;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.messaging.Messenger;
+import org.bukkit.plugin.messaging.PluginMessageListener;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Sends drop policy messages to all servers behind a BungeeCord or Velocity proxy, with the
+ * {@code Forward} subchannel of the {@code BungeeCord} plugin messaging channel.
+ *
+ * <p>Plugin messages travel over the connection of a player, so a message is only sent while a
+ * player is online on this server, and only reaches servers with at least one player online.
+ */
+public final class BungeeTransport implements PolicyTransport, PluginMessageListener {
+    private static final String CHANNEL = "BungeeCord";
+    private static final String SUBCHANNEL = "DropStop";
+    private static final int MAX_DATA_SIZE = 0xFFFF;
+
+    private final Plugin plugin;
+    private final TaskScheduler scheduler;
+    private volatile Consumer<byte[]> receiver;
+
+    /**
+     * Create a new transport over the proxy.
+     *
+     * @param plugin    The plugin to register the channels for.
+     * @param scheduler The scheduler to send messages with.
+     */
+    public BungeeTransport(@Nonnull Plugin plugin, @Nonnull TaskScheduler scheduler) {
+        this.plugin = plugin;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void open(@Nonnull Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        Messenger messenger = plugin.getServer().getMessenger();
+        messenger.registerOutgoingPluginChannel(plugin, CHANNEL);
+        messenger.registerIncomingPluginChannel(plugin, CHANNEL, this);
+    }
+
+    @Override
+    public void send(@Nonnull byte[] message) {
+        if (message.length > MAX_DATA_SIZE) {
+            throw new IllegalArgumentException("The message is too large to be forwarded: " + message.length + " bytes");
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(message.length + 32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF("Forward");
+            out.writeUTF("ALL");
+            out.writeUTF(SUBCHANNEL);
+            out.writeShort(message.length);
+            out.write(message);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex); // Not thrown by a byte array stream
+        }
+
+        byte[] data = bytes.toByteArray();
+        scheduler.runGlobal(() -> {
+            Iterator<? extends Player> players = plugin.getServer().getOnlinePlayers().iterator();
+            if (players.hasNext()) {
+                Player player = players.next();
+                scheduler.executeForEntity(player, () -> player.sendPluginMessage(plugin, CHANNEL, data));
+            }
+        });
+    }
+
+    @Override
+    public void onPluginMessageReceived(@Nonnull String channel, @Nonnull Player player, @Nonnull byte[] message) {
+        Consumer<byte[]> current = receiver;
+        if (current == null || !CHANNEL.equals(channel)) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message))) {
+            if (!SUBCHANNEL.equals(in.readUTF())) {
+                return;
+            }
+
+            byte[] data = new byte[in.readUnsignedShort()];
+            in.readFully(data);
+            current.accept(data);
+        } catch (IOException ex) {
+            // Not a forwarded message of this plugin, e.g. a response to another subchannel
+        }
+    }
+
+    @Override
+    public void close() {
+        receiver = null;
+        Messenger messenger = plugin.getServer().getMessenger();
+        messenger.unregisterIncomingPluginChannel(plugin, CHANNEL, this);
+        messenger.unregisterOutgoingPluginChannel(plugin, CHANNEL);
+    }
+}
@@ -0,0 +1,13 @@
+package com.altiran.dropstop.network;
+
+import java.util.List;
+
+/**
+ * A change to a list of strings in the configuration, e.g. an item allowlist.
+ *
+ * @param path    The keys leading to the list from the root of the configuration.
+ * @param removed The entries that have been removed from the list.
+ * @param added   The entries that have been added to the list.
+ */
+public record ListDelta(List<String> path, List<String> removed, List<String> added) {
+}
@@ -0,0 +1,34 @@
+package com.altiran.dropstop.network;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.Locale;
+
+/**
+ * The role of a server in the network-wide distribution of the drop policy.
+ */
+public enum NetworkRole {
+    /**
+     * The server sends its drop policy to the other servers whenever it is reloaded.
+     */
+    PUBLISH,
+    /**
+     * The server applies the drop policy it receives from the publishing server.
+     */
+    RECEIVE;
+
+    /**
+     * Parse a role from the configuration, ignoring case.
+     *
+     * @param value The configured value, e.g. {@code publish}.
+     * @return The role, or {@code null} if the value is unknown.
+     */
+    public static @Nullable NetworkRole parse(@Nonnull String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.altiran.dropstop.network;
+
+import jakarta.annotation.Nonnull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utility class for the compact binary encoding of drop policy messages.
+ *
+ * <p>A message starts with the format version, its type and the policy version as a long. A full
+ * snapshot is followed by the settings tree, a delta by the version it is based on and the list
+ * changes. Values are prefixed with a one byte tag, integers and lengths are variable-length
+ * encoded and strings are UTF-8, so a typical policy fits in a few hundred bytes.
+ */
+public final class PolicyCodec {
+    /**
+     * The version of the encoding, a message of another version is rejected.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int TYPE_FULL = 0;
+    private static final int TYPE_DELTA = 1;
+    private static final int TAG_SECTION = 0;
+    private static final int TAG_LIST = 1;
+    private static final int TAG_STRING = 2;
+    private static final int TAG_TRUE = 3;
+    private static final int TAG_FALSE = 4;
+    private static final int TAG_INT = 5;
+    private static final int TAG_LONG = 6;
+    private static final int TAG_DOUBLE = 7;
+    private static final int MAX_DEPTH = 32;
+
+    private PolicyCodec() {
+    }
+
+    /**
+     * Encode a full snapshot of the settings.
+     *
+     * @param version The version of the policy.
+     * @param tree    The settings, as created by {@link PolicyTree#snapshot}.
+     * @return The encoded message.
+     */
+    public static @Nonnull byte[] encodeFull(long version, @Nonnull Map<String, Object> tree) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        out.write(FORMAT_VERSION);
+        out.write(TYPE_FULL);
+        writeLong(out, version);
+        writeValue(out, tree);
+        return out.toByteArray();
+    }
+
+    /**
+     * Encode the changes of the item allowlists since a previous version.
+     *
+     * @param version     The version of the policy.
+     * @param baseVersion The version the changes apply to.
+     * @param deltas      The changes of the allowlists.
+     * @return The encoded message.
+     */
+    public static @Nonnull byte[] encodeDelta(long version, long baseVersion, @Nonnull List<ListDelta> deltas) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        out.write(FORMAT_VERSION);
+        out.write(TYPE_DELTA);
+        writeLong(out, version);
+        writeLong(out, baseVersion);
+        writeVarInt(out, deltas.size());
+        for (ListDelta delta : deltas) {
+            writeStrings(out, delta.path());
+            writeStrings(out, delta.removed());
+            writeStrings(out, delta.added());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a message.
+     *
+     * @param message The encoded message.
+     * @return The decoded message.
+     * @throws IOException If the message is malformed or of another format version.
+     */
+    public static @Nonnull PolicyMessage decode(@Nonnull byte[] message) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(message);
+        try {
+            int format = in.get() & 0xFF;
+            if (format != FORMAT_VERSION) {
+                throw new IOException("Unsupported policy format version " + format + ", expected " + FORMAT_VERSION);
+            }
+
+            int type = in.get() & 0xFF;
+            long version = in.getLong();
+            PolicyMessage decoded;
+            if (type == TYPE_FULL) {
+                if (!(readValue(in, 0) instanceof Map<?, ?> tree)) {
+                    throw new IOException("The policy snapshot is not a section");
+                }
+                @SuppressWarnings("unchecked")
+                Map<String, Object> settings = (Map<String, Object>) tree;
+                decoded = new PolicyMessage(version, 0, settings, List.of());
+            } else if (type == TYPE_DELTA) {
+                long baseVersion = in.getLong();
+                int count = readLength(in);
+                List<ListDelta> deltas = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    List<String> path = readStrings(in);
+                    if (path.isEmpty()) {
+                        throw new IOException("Empty delta path");
+                    }
+                    deltas.add(new ListDelta(path, readStrings(in), readStrings(in)));
+                }
+                decoded = new PolicyMessage(version, baseVersion, null, Collections.unmodifiableList(deltas));
+            } else {
+                throw new IOException("Unknown policy message type " + type);
+            }
+
+            if (in.hasRemaining()) {
+                throw new IOException("Trailing bytes after the policy message");
+            }
+            return decoded;
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Truncated policy message", ex);
+        }
+    }
+
+    private static void writeValue(@Nonnull ByteArrayOutputStream out, @Nonnull Object value) {
+        if (value instanceof Map<?, ?> map) {
+            out.write(TAG_SECTION);
+            writeVarInt(out, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(out, (String) entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof List<?> list) {
+            out.write(TAG_LIST);
+            writeVarInt(out, list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof String string) {
+            out.write(TAG_STRING);
+            writeString(out, string);
+        } else if (value instanceof Boolean bool) {
+            out.write(bool ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Integer number) {
+            out.write(TAG_INT);
+            writeVarLong(out, zigZag(number));
+        } else if (value instanceof Long number) {
+            out.write(TAG_LONG);
+            writeVarLong(out, zigZag(number));
+        } else if (value instanceof Double number) {
+            out.write(TAG_DOUBLE);
+            writeLong(out, Double.doubleToLongBits(number));
+        } else {
+            throw new IllegalArgumentException("Unsupported value: " + value);
+        }
+    }
+
+    private static @Nonnull Object readValue(@Nonnull ByteBuffer in, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("The policy snapshot is nested too deeply");
+        }
+
+        int tag = in.get() & 0xFF;
+        switch (tag) {
+            case TAG_SECTION -> {
+                int size = readLength(in);
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    String key = readString(in);
+                    map.put(key, readValue(in, depth + 1));
+                }
+                return Collections.unmodifiableMap(map);
+            }
+            case TAG_LIST -> {
+                int size = readLength(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, depth + 1));
+                }
+                return Collections.unmodifiableList(list);
+            }
+            case TAG_STRING -> {
+                return readString(in);
+            }
+            case TAG_TRUE -> {
+                return Boolean.TRUE;
+            }
+            case TAG_FALSE -> {
+                return Boolean.FALSE;
+            }
+            case TAG_INT -> {
+                return (int) unZigZag(readVarLong(in));
+            }
+            case TAG_LONG -> {
+                return unZigZag(readVarLong(in));
+            }
+            case TAG_DOUBLE -> {
+                return Double.longBitsToDouble(in.getLong());
+            }
+            default -> throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    private static void writeStrings(@Nonnull ByteArrayOutputStream out, @Nonnull List<String> strings) {
+        writeVarInt(out, strings.size());
+        for (String string : strings) {
+            writeString(out, string);
+        }
+    }
+
+    private static @Nonnull List<String> readStrings(@Nonnull ByteBuffer in) throws IOException {
+        int size = readLength(in);
+        List<String> strings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            strings.add(readString(in));
+        }
+        return Collections.unmodifiableList(strings);
+    }
+
+    private static void writeString(@Nonnull ByteArrayOutputStream out, @Nonnull String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static @Nonnull String readString(@Nonnull ByteBuffer in) throws IOException {
+        int length = readLength(in);
+        String string = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return string;
+    }
+
+    private static int readLength(@Nonnull ByteBuffer in) throws IOException {
+        long length = readVarLong(in);
+        // Every element takes at least one byte, so a larger length can only come from a corrupt message
+        if (length < 0 || length > in.remaining()) {
+            throw new IOException("Invalid length " + length);
+        }
+        return (int) length;
+    }
+
+    private static void writeLong(@Nonnull ByteArrayOutputStream out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    private static void writeVarInt(@Nonnull ByteArrayOutputStream out, int value) {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarLong(@Nonnull ByteArrayOutputStream out, long value) {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            out.write((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        out.write((int) remaining);
+    }
+
+    private static long readVarLong(@Nonnull ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Variable-length number is too long");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
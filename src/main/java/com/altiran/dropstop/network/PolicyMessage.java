@@ -0,0 +1,23 @@
+package com.altiran.dropstop.network;
+
+import jakarta.annotation.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A decoded drop policy message, either a full snapshot of the settings or a delta of their lists.
+ *
+ * @param version     The version of the policy the message describes.
+ * @param baseVersion The version the delta applies to, or 0 for a full snapshot.
+ * @param tree        The settings of a full snapshot, or {@code null} for a delta.
+ * @param deltas      The list changes of a delta, empty for a full snapshot.
+ */
+public record PolicyMessage(long version, long baseVersion, @Nullable Map<String, Object> tree, List<ListDelta> deltas) {
+    /**
+     * Check whether the message is a delta that has to be applied to the policy of {@link #baseVersion()}.
+     */
+    public boolean isDelta() {
+        return tree == null;
+    }
+}
@@ -0,0 +1,204 @@
+package com.altiran.dropstop.network;
+
+import com.altiran.dropstop.scheduler.TaskScheduler;
+import jakarta.annotation.Nonnull;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Distributes the drop settings from one server to the other servers of a network.
+ *
+ * <p>The publishing server sends a full snapshot of its settings whenever they are reloaded, or only
+ * the changes of the item allowlists if nothing else has changed. Each snapshot gets a new version,
+ * derived from the clock so it keeps increasing when the publisher restarts. The latest snapshot is
+ * sent again periodically, so servers that missed a message catch up.
+ *
+ * <p>Receiving servers decode messages asynchronously and apply a snapshot only if it is newer than
+ * the one they applied last. A delta is only applied on top of the exact version it is based on,
+ * otherwise it is rejected and the server waits for the next full snapshot.
+ */
+public final class PolicySync {
+    /**
+     * The settings that are never distributed, as they are specific to each server.
+     */
+    public static final Set<String> LOCAL_KEYS = Set.of("network", "watch-config-file", "audit-log", "player-stats", "stats-log-interval");
+
+    private static final long RESEND_PERIOD_TICKS = 600L; // 30 seconds
+    private static final int MAX_MESSAGE_SIZE = 32000; // Plugin messages are limited to 32 KiB
+
+    private final NetworkRole role;
+    private final PolicyTransport transport;
+    private final TaskScheduler scheduler;
+    private final Logger logger;
+    private final Consumer<Map<String, Object>> receiver;
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private TaskScheduler.Task resendTask;
+    private Map<String, Object> tree;
+    private byte[] snapshot;
+    private long version;
+
+    /**
+     * Create a new policy distribution.
+     *
+     * @param role      Whether this server publishes or receives the settings.
+     * @param transport The transport to send and receive the messages with.
+     * @param scheduler The scheduler to decode received messages and resend snapshots with.
+     * @param logger    The logger to report applied and rejected messages to.
+     * @param receiver  The callback to apply a received settings tree, called on an asynchronous thread.
+     */
+    public PolicySync(@Nonnull NetworkRole role, @Nonnull PolicyTransport transport, @Nonnull TaskScheduler scheduler, @Nonnull Logger logger, @Nonnull Consumer<Map<String, Object>> receiver) {
+        this.role = role;
+        this.transport = transport;
+        this.scheduler = scheduler;
+        this.logger = logger;
+        this.receiver = receiver;
+    }
+
+    /**
+     * Start sending or receiving the settings.
+     */
+    public void start() {
+        if (role == NetworkRole.PUBLISH) {
+            transport.open(message -> {
+                // Publishers ignore the messages of other servers
+            });
+            resendTask = scheduler.runAsyncTimer(this::resend, RESEND_PERIOD_TICKS, RESEND_PERIOD_TICKS);
+        } else {
+            transport.open(message -> scheduler.runAsync(() -> handle(message)));
+        }
+    }
+
+    /**
+     * Stop sending and receiving the settings.
+     */
+    public void stop() {
+        if (resendTask != null) {
+            resendTask.cancel();
+            resendTask = null;
+        }
+        transport.close();
+    }
+
+    /**
+     * Send the given settings to the other servers, if they have changed since the last time. Has no effect on receiving servers.
+     *
+     * @param settings The settings, as created by {@link PolicyTree#snapshot}.
+     */
+    public synchronized void publish(@Nonnull Map<String, Object> settings) {
+        if (role != NetworkRole.PUBLISH) {
+            return;
+        }
+
+        List<ListDelta> deltas = tree == null ? null : PolicyTree.diff(tree, settings);
+        if (deltas != null && deltas.isEmpty()) {
+            return;
+        }
+
+        long next = Math.max(version + 1, System.currentTimeMillis());
+        byte[] full;
+        try {
+            full = PolicyCodec.encodeFull(next, settings);
+        } catch (IllegalArgumentException ex) {
+            logger.log(Level.WARNING, "Could not encode the drop settings for the network.", ex);
+            return;
+        }
+
+        if (full.length > MAX_MESSAGE_SIZE) {
+            logger.log(Level.WARNING, "The drop settings are too large to be sent over the network ({0} bytes).", full.length);
+            return;
+        }
+
+        byte[] message = deltas == null ? full : PolicyCodec.encodeDelta(next, version, deltas);
+        tree = settings;
+        snapshot = full;
+        version = next;
+        send(message);
+    }
+
+    private void resend() {
+        byte[] message;
+        synchronized (this) {
+            message = snapshot;
+        }
+        if (message != null) {
+            send(message);
+        }
+    }
+
+    private void send(@Nonnull byte[] message) {
+        transport.send(message);
+        sent.incrementAndGet();
+    }
+
+    private synchronized void handle(@Nonnull byte[] message) {
+        received.incrementAndGet();
+        try {
+            PolicyMessage decoded = PolicyCodec.decode(message);
+            if (decoded.version() <= version) {
+                return; // Already applied, e.g. a periodic resend
+            }
+
+            Map<String, Object> settings;
+            if (decoded.isDelta()) {
+                if (tree == null || decoded.baseVersion() != version) {
+                    rejected.incrementAndGet();
+                    logger.log(Level.FINE, "Skipped drop settings delta {0}, waiting for the next full snapshot.", decoded.version());
+                    return;
+                }
+                settings = PolicyTree.apply(tree, decoded.deltas());
+            } else {
+                settings = decoded.tree();
+            }
+
+            receiver.accept(settings);
+            tree = settings;
+            version = decoded.version();
+            logger.log(Level.INFO, "Applied the drop settings of version {0} from the network.", version);
+        } catch (IOException | RuntimeException ex) {
+            rejected.incrementAndGet();
+            logger.log(Level.WARNING, "Rejected drop settings received from the network.", ex);
+        }
+    }
+
+    /**
+     * Forget the applied version after the local configuration has been reloaded, so the next snapshot is applied again.
+     */
+    public synchronized void reset() {
+        if (role == NetworkRole.RECEIVE) {
+            tree = null;
+            version = 0;
+        }
+    }
+
+    public @Nonnull NetworkRole getRole() {
+        return role;
+    }
+
+    /**
+     * Get the version of the settings that have been published or applied last, or 0 if none.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getReceived() {
+        return received.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+}
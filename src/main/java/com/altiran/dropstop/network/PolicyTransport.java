@@ -0,0 +1,29 @@
+package com.altiran.dropstop.network;
+
+import jakarta.annotation.Nonnull;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries encoded drop policy messages between the servers of a network.
+ */
+public interface PolicyTransport {
+    /**
+     * Start receiving the messages sent by other servers.
+     *
+     * @param receiver The callback for received messages, called on any thread.
+     */
+    void open(@Nonnull Consumer<byte[]> receiver);
+
+    /**
+     * Send a message to all other servers. Safe to call from any thread.
+     *
+     * @param message The encoded message.
+     */
+    void send(@Nonnull byte[] message);
+
+    /**
+     * Stop sending and receiving messages.
+     */
+    void close();
+}
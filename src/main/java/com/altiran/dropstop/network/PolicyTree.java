@@ -0,0 +1,204 @@
+package com.altiran.dropstop.network;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Utility class for the settings tree that is distributed over the network.
+ *
+ * <p>A tree is an immutable copy of a configuration made of maps with string keys, lists, strings,
+ * booleans, integers, longs and doubles. The servers receiving it compile their policy from it,
+ * so tags and regions are resolved against the materials and worlds of each server.
+ */
+public final class PolicyTree {
+    private static final String ALLOWLIST_KEY = "item-allowlist";
+
+    private PolicyTree() {
+    }
+
+    /**
+     * Copy the settings of a configuration into a tree.
+     *
+     * @param section The configuration to copy.
+     * @param keys    The top-level keys to include.
+     * @return The tree.
+     * @throws IllegalArgumentException If the configuration holds a value that can't be sent over the network.
+     */
+    public static @Nonnull Map<String, Object> snapshot(@Nonnull ConfigurationSection section, @Nonnull Predicate<String> keys) {
+        Map<String, Object> tree = new LinkedHashMap<>();
+        for (String key : section.getKeys(false)) {
+            if (keys.test(key)) {
+                tree.put(key, copy(section.get(key), key));
+            }
+        }
+        return Collections.unmodifiableMap(tree);
+    }
+
+    private static @Nonnull Object copy(@Nullable Object value, @Nonnull String path) {
+        if (value instanceof ConfigurationSection section) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (String key : section.getKeys(false)) {
+                map.put(key, copy(section.get(key), path + "." + key));
+            }
+            return Collections.unmodifiableMap(map);
+        } else if (value instanceof Map<?, ?> values) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : values.entrySet()) {
+                String key = String.valueOf(entry.getKey());
+                map.put(key, copy(entry.getValue(), path + "." + key));
+            }
+            return Collections.unmodifiableMap(map);
+        } else if (value instanceof List<?> values) {
+            List<Object> list = new ArrayList<>(values.size());
+            for (Object element : values) {
+                list.add(copy(element, path));
+            }
+            return Collections.unmodifiableList(list);
+        } else if (value instanceof String || value instanceof Boolean || value instanceof Integer || value instanceof Long || value instanceof Double) {
+            return value;
+        } else if (value instanceof Float number) {
+            return number.doubleValue();
+        } else if (value instanceof Short || value instanceof Byte) {
+            return ((Number) value).intValue();
+        }
+        throw new IllegalArgumentException("Unsupported value at " + path + ": " + value);
+    }
+
+    /**
+     * Create a configuration holding the settings of a tree.
+     *
+     * @param tree The tree.
+     * @return A new configuration.
+     */
+    public static @Nonnull YamlConfiguration toConfiguration(@Nonnull Map<String, Object> tree) {
+        YamlConfiguration config = new YamlConfiguration();
+        for (Map.Entry<String, Object> entry : tree.entrySet()) {
+            if (entry.getValue() instanceof Map<?, ?> map) {
+                config.createSection(entry.getKey(), map);
+            } else {
+                config.set(entry.getKey(), entry.getValue());
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Compute the changes between two trees, if they only differ in item allowlists.
+     *
+     * @param previous The tree that has been sent before.
+     * @param current  The new tree.
+     * @return The changes of the allowlists, empty if the trees are equal, or {@code null} if other settings have changed.
+     */
+    public static @Nullable List<ListDelta> diff(@Nonnull Map<String, Object> previous, @Nonnull Map<String, Object> current) {
+        List<ListDelta> deltas = new ArrayList<>();
+        return diff(previous, current, new ArrayList<>(), deltas) ? deltas : null;
+    }
+
+    private static boolean diff(@Nonnull Map<?, ?> previous, @Nonnull Map<?, ?> current, @Nonnull List<String> path, @Nonnull List<ListDelta> deltas) {
+        if (!previous.keySet().equals(current.keySet())) {
+            return false;
+        }
+
+        for (Map.Entry<?, ?> entry : current.entrySet()) {
+            String key = (String) entry.getKey();
+            Object before = previous.get(key);
+            Object after = entry.getValue();
+            if (Objects.equals(before, after)) {
+                continue;
+            }
+
+            path.add(key);
+            boolean compatible;
+            if (before instanceof Map<?, ?> beforeMap && after instanceof Map<?, ?> afterMap) {
+                compatible = diff(beforeMap, afterMap, path, deltas);
+            } else if (ALLOWLIST_KEY.equals(key) && isStringList(before) && isStringList(after)) {
+                Set<Object> removed = new LinkedHashSet<>((List<?>) before);
+                ((List<?>) after).forEach(removed::remove);
+                Set<Object> added = new LinkedHashSet<>((List<?>) after);
+                ((List<?>) before).forEach(added::remove);
+                deltas.add(new ListDelta(List.copyOf(path), toStrings(removed), toStrings(added)));
+                compatible = true;
+            } else {
+                compatible = false;
+            }
+            path.remove(path.size() - 1);
+
+            if (!compatible) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isStringList(@Nullable Object value) {
+        if (!(value instanceof List<?> list)) {
+            return false;
+        }
+        for (Object element : list) {
+            if (!(element instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static @Nonnull List<String> toStrings(@Nonnull Set<Object> values) {
+        List<String> strings = new ArrayList<>(values.size());
+        for (Object value : values) {
+            strings.add((String) value);
+        }
+        return strings;
+    }
+
+    /**
+     * Apply list changes to a tree. The tree itself is not modified.
+     *
+     * @param tree   The tree the changes are based on.
+     * @param deltas The changes to apply.
+     * @return A new tree with the changes applied.
+     * @throws IllegalArgumentException If a change doesn't point to a list of the tree.
+     */
+    public static @Nonnull Map<String, Object> apply(@Nonnull Map<String, Object> tree, @Nonnull List<ListDelta> deltas) {
+        Map<String, Object> result = tree;
+        for (ListDelta delta : deltas) {
+            result = apply(result, delta, 0);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static @Nonnull Map<String, Object> apply(@Nonnull Map<String, Object> map, @Nonnull ListDelta delta, int depth) {
+        String key = delta.path().get(depth);
+        Object value = map.get(key);
+        Object replacement;
+        if (depth == delta.path().size() - 1) {
+            if (!(value instanceof List<?> list)) {
+                throw new IllegalArgumentException("No list at " + String.join(".", delta.path()));
+            }
+            Set<Object> entries = new LinkedHashSet<>(list);
+            delta.removed().forEach(entries::remove);
+            entries.addAll(delta.added());
+            replacement = List.copyOf(entries);
+        } else if (value instanceof Map<?, ?> child) {
+            replacement = apply((Map<String, Object>) child, delta, depth + 1);
+        } else {
+            throw new IllegalArgumentException("No section at " + String.join(".", delta.path().subList(0, depth + 1)));
+        }
+
+        Map<String, Object> copy = new LinkedHashMap<>(map);
+        copy.put(key, replacement);
+        return Collections.unmodifiableMap(copy);
+    }
+}
@@ -0,0 +1,97 @@
+package com.altiran.dropstop.player;
+
+import jakarta.annotation.Nonnull;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.permissions.PermissionAttachmentInfo;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the drop bypass permissions of the online players.
+ *
+ * <p>Permissions are resolved once when a player joins or changes worlds, and refreshed periodically,
+ * because permission plugins can be expensive to query. The drop handler only reads the cached decision.
+ * Entries are replaced as a whole, so the cache can be read and refreshed from different threads.
+ */
+public final class BypassCache {
+    /**
+     * The permission to bypass the drop rules for all items.
+     */
+    public static final String BYPASS_PERMISSION = "dropstop.bypass";
+    private static final String MATERIAL_PREFIX = BYPASS_PERMISSION + ".";
+
+    private final Map<UUID, Bypass> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Resolve and cache the bypass permissions of the given player.
+     *
+     * <p>Players without any bypass permission are not stored at all.
+     *
+     * @param player The player to resolve the permissions of.
+     */
+    public void refresh(@Nonnull Player player) {
+        boolean all = player.hasPermission(BYPASS_PERMISSION);
+        Set<Material> materials = null;
+
+        if (!all) {
+            for (PermissionAttachmentInfo info : player.getEffectivePermissions()) {
+                String permission = info.getPermission().toLowerCase(Locale.ROOT);
+                if (!info.getValue() || !permission.startsWith(MATERIAL_PREFIX)) {
+                    continue;
+                }
+
+                Material material = Material.getMaterial(permission.substring(MATERIAL_PREFIX.length()).toUpperCase(Locale.ROOT));
+                if (material != null) {
+                    if (materials == null) {
+                        materials = EnumSet.noneOf(Material.class);
+                    }
+                    materials.add(material);
+                }
+            }
+        }
+
+        if (all || materials != null) {
+            entries.put(player.getUniqueId(), new Bypass(all, materials));
+        } else {
+            entries.remove(player.getUniqueId());
+        }
+    }
+
+    /**
+     * Check whether the given player may bypass the drop rules for the given material.
+     *
+     * @param id       The unique id of the player.
+     * @param material The material of the dropped item.
+     * @return {@code true} if the player has a bypass permission for the material.
+     */
+    public boolean bypasses(@Nonnull UUID id, @Nonnull Material material) {
+        if (entries.isEmpty()) {
+            return false;
+        }
+
+        Bypass bypass = entries.get(id);
+        return bypass != null && (bypass.all || bypass.materials.contains(material));
+    }
+
+    /**
+     * Remove the cached permissions of the given player.
+     *
+     * @param id The unique id of the player.
+     */
+    public void remove(@Nonnull UUID id) {
+        entries.remove(id);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private record Bypass(boolean all, Set<Material> materials) {
+    }
+}
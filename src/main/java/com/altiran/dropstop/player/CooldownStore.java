@@ -0,0 +1,89 @@
+package com.altiran.dropstop.player;
+
+import jakarta.annotation.Nonnull;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Stores the time of the last warning per player, keyed by their unique id.
+ *
+ * <p>Each player gets a single mutable entry holding a primitive timestamp, so recording a warning
+ * does not allocate. Entries are removed when the player quits, and entries whose cooldown has
+ * passed can be purged periodically to keep the store bounded by the number of recently warned players.
+ *
+ * <p>The store is safe to use from several threads, as players are ticked by different region threads on Folia.
+ */
+public final class CooldownStore {
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Try to start a new cooldown window for the given player.
+     *
+     * @param id     The unique id of the player.
+     * @param now    The current time in nanoseconds, as returned by {@link System#nanoTime()}.
+     * @param window The length of the cooldown window in nanoseconds.
+     * @return {@code true} if the previous window has passed and a new one was started.
+     */
+    public boolean tryAcquire(@Nonnull UUID id, long now, long window) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            entry = entries.putIfAbsent(id, new Entry(now));
+            if (entry == null) {
+                return true;
+            }
+        }
+
+        long last = entry.timestamp;
+        return now - last >= window && Entry.TIMESTAMP.compareAndSet(entry, last, now);
+    }
+
+    /**
+     * Remove the entry of the given player.
+     *
+     * @param id The unique id of the player.
+     */
+    public void remove(@Nonnull UUID id) {
+        entries.remove(id);
+    }
+
+    /**
+     * Remove all entries whose cooldown window has passed.
+     *
+     * @param now    The current time in nanoseconds, as returned by {@link System#nanoTime()}.
+     * @param window The length of the cooldown window in nanoseconds.
+     * @return The number of removed entries.
+     */
+    public int purgeExpired(long now, long window) {
+        int removed = 0;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().timestamp >= window) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private static final AtomicLongFieldUpdater<Entry> TIMESTAMP = AtomicLongFieldUpdater.newUpdater(Entry.class, "timestamp");
+
+        private volatile long timestamp;
+
+        private Entry(long timestamp) {
+            this.timestamp = timestamp;
+        }
+    }
+}
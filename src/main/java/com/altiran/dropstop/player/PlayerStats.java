@@ -0,0 +1,12 @@
+package com.altiran.dropstop.player;
+
+/**
+ * Snapshot of the persistent drop counters of a player.
+ *
+ * @param attempts    The number of drops the player has attempted.
+ * @param blocked     The number of drops that have been blocked.
+ * @param warned      The number of warnings that have been sent to the player.
+ * @param lastAttempt The time of the last attempted drop, in milliseconds since the epoch.
+ */
+public record PlayerStats(long attempts, long blocked, long warned, long lastAttempt) {
+}
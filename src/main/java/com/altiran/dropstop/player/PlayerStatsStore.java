@@ -0,0 +1,237 @@
+package com.altiran.dropstop.player;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent drop counters per player, kept in a memory-mapped file of fixed-size records.
+ *
+ * <p>The file starts with a header holding a magic number, the format version and the number of
+ * records, followed by one record per player: the UUID, the attempted, blocked and warned drops and
+ * the time of the last attempt, all as big-endian longs. Loading the file only reads the UUIDs into
+ * the slot index, so it is a single pass without any parsing. The counters are updated in place in
+ * the mapping by the thread that owns the player, and written to disk by {@link #flush()}.
+ *
+ * <p>Each player gets a slot the first time they drop something. When the mapping is full, the file
+ * is mapped again with twice the capacity. The old mapping shares its pages with the new one, so
+ * updates made through it in the meantime are not lost.
+ */
+public final class PlayerStatsStore {
+    private static final int MAGIC = 0x44535053; // "DSPS"
+    private static final int VERSION = 1;
+    private static final int VERSION_OFFSET = 4;
+    private static final int COUNT_OFFSET = 8;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 48;
+    private static final int ATTEMPTS_OFFSET = 16;
+    private static final int BLOCKED_OFFSET = 24;
+    private static final int WARNED_OFFSET = 32;
+    private static final int LAST_ATTEMPT_OFFSET = 40;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+    private final Path file;
+    private final Map<UUID, Integer> slots = new ConcurrentHashMap<>();
+    private FileChannel channel;
+    private volatile MappedByteBuffer buffer;
+    private int capacity;
+    private int count;
+
+    /**
+     * Create a new store, backed by the given file once opened.
+     *
+     * @param file The file to keep the records in, created if it doesn't exist.
+     */
+    public PlayerStatsStore(@Nonnull Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Open and map the file, indexing the slots of the players it holds.
+     *
+     * @throws IOException If the file could not be opened or is not a valid player statistics file.
+     */
+    public synchronized void open() throws IOException {
+        Path parent = file.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size == 0) {
+                map(INITIAL_CAPACITY);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(VERSION_OFFSET, VERSION);
+                buffer.putInt(COUNT_OFFSET, 0);
+                return;
+            }
+
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid player statistics file size: " + size);
+            }
+
+            map((int) ((size - HEADER_SIZE) / RECORD_SIZE));
+            MappedByteBuffer mapped = buffer;
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException("Not a player statistics file of version " + VERSION + ": " + file);
+            }
+
+            count = mapped.getInt(COUNT_OFFSET);
+            if (count < 0 || count > capacity) {
+                throw new IOException("Invalid number of player statistics records: " + count);
+            }
+
+            for (int slot = 0; slot < count; slot++) {
+                int offset = offset(slot);
+                slots.put(new UUID(mapped.getLong(offset), mapped.getLong(offset + 8)), slot);
+            }
+        } catch (IOException | RuntimeException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    private void map(int records) throws IOException {
+        capacity = Math.max(1, records);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    /**
+     * Record an attempted drop of a player.
+     *
+     * <p>Must be called by the thread that owns the player, so the counters of a player are never
+     * updated concurrently. Has no effect once the store is closed.
+     *
+     * @param id        The UUID of the player.
+     * @param blocked   Whether the drop has been blocked.
+     * @param warned    Whether the player has been warned.
+     * @param timestamp The time of the drop, in milliseconds since the epoch.
+     */
+    public void record(@Nonnull UUID id, boolean blocked, boolean warned, long timestamp) {
+        Integer slot = slots.get(id);
+        if (slot == null) {
+            slot = allocate(id);
+            if (slot == null) {
+                return;
+            }
+        }
+
+        MappedByteBuffer mapped = buffer;
+        if (mapped == null) {
+            return;
+        }
+
+        int offset = offset(slot);
+        mapped.putLong(offset + ATTEMPTS_OFFSET, mapped.getLong(offset + ATTEMPTS_OFFSET) + 1);
+        if (blocked) {
+            mapped.putLong(offset + BLOCKED_OFFSET, mapped.getLong(offset + BLOCKED_OFFSET) + 1);
+        }
+        if (warned) {
+            mapped.putLong(offset + WARNED_OFFSET, mapped.getLong(offset + WARNED_OFFSET) + 1);
+        }
+        mapped.putLong(offset + LAST_ATTEMPT_OFFSET, timestamp);
+    }
+
+    private synchronized @Nullable Integer allocate(@Nonnull UUID id) {
+        Integer existing = slots.get(id);
+        if (existing != null || buffer == null) {
+            return existing;
+        }
+
+        if (count == capacity) {
+            if (capacity == MAX_CAPACITY) {
+                return null;
+            }
+            try {
+                map((int) Math.min(MAX_CAPACITY, capacity * 2L));
+            } catch (IOException ex) {
+                return null;
+            }
+        }
+
+        MappedByteBuffer mapped = buffer;
+        int slot = count;
+        int offset = offset(slot);
+        mapped.putLong(offset, id.getMostSignificantBits());
+        mapped.putLong(offset + 8, id.getLeastSignificantBits());
+        for (int i = ATTEMPTS_OFFSET; i < RECORD_SIZE; i += Long.BYTES) {
+            mapped.putLong(offset + i, 0L);
+        }
+
+        // The record is complete before it is counted, so a crash never leaves a partial record behind
+        count++;
+        mapped.putInt(COUNT_OFFSET, count);
+        slots.put(id, slot);
+        return slot;
+    }
+
+    /**
+     * Get the counters of a player.
+     *
+     * @param id The UUID of the player.
+     * @return The counters, or {@code null} if the player has never dropped anything or the store is closed.
+     */
+    public @Nullable PlayerStats get(@Nonnull UUID id) {
+        Integer slot = slots.get(id);
+        MappedByteBuffer mapped = buffer;
+        if (slot == null || mapped == null) {
+            return null;
+        }
+
+        int offset = offset(slot);
+        return new PlayerStats(mapped.getLong(offset + ATTEMPTS_OFFSET), mapped.getLong(offset + BLOCKED_OFFSET),
+                mapped.getLong(offset + WARNED_OFFSET), mapped.getLong(offset + LAST_ATTEMPT_OFFSET));
+    }
+
+    /**
+     * Write the changed records to disk. Safe to call from any thread.
+     */
+    public void flush() {
+        MappedByteBuffer mapped = buffer;
+        if (mapped != null) {
+            mapped.force();
+        }
+    }
+
+    /**
+     * Flush and close the file. The mapping itself is released once it is garbage collected.
+     *
+     * @throws IOException If the file could not be closed.
+     */
+    public synchronized void close() throws IOException {
+        flush();
+        buffer = null;
+        slots.clear();
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    public @Nonnull Path getFile() {
+        return file;
+    }
+
+    /**
+     * Get the number of players with a record.
+     */
+    public int size() {
+        return slots.size();
+    }
+}
@@ -0,0 +1,98 @@
+package com.altiran.dropstop.player;
+
+import jakarta.annotation.Nonnull;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limits the drop rate of each player with a token bucket, keyed by their unique id.
+ *
+ * <p>Each player gets a single mutable bucket holding primitive fields, allocated on their first drop.
+ * The tokens are kept as nanoseconds of credit and refilled lazily from the time that passed since the
+ * last drop, so there is no refill task and taking a token does not allocate. Buckets are removed when
+ * the player quits.
+ */
+public final class RateLimiter {
+    private final Map<UUID, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Try to take a token from the bucket of the given player.
+     *
+     * @param id       The unique id of the player.
+     * @param now      The current time in nanoseconds, as returned by {@link System#nanoTime()}.
+     * @param cost     The time in nanoseconds it takes to refill one token.
+     * @param capacity The maximum credit of the bucket in nanoseconds, the burst size times the cost.
+     * @return {@code true} if a token was taken, {@code false} if the bucket is empty.
+     */
+    public boolean tryAcquire(@Nonnull UUID id, long now, long cost, long capacity) {
+        Bucket bucket = buckets.get(id);
+        if (bucket == null) {
+            Bucket created = new Bucket(now, capacity);
+            bucket = buckets.putIfAbsent(id, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+
+        synchronized (bucket) {
+            long credit = Math.min(capacity, bucket.credit + Math.max(0, now - bucket.lastRefill));
+            bucket.lastRefill = now;
+            if (credit < cost) {
+                bucket.credit = credit;
+                return false;
+            }
+
+            bucket.credit = credit - cost;
+            return true;
+        }
+    }
+
+    /**
+     * Check whether the bucket of the given player holds a token, without taking it.
+     *
+     * @param id       The unique id of the player.
+     * @param now      The current time in nanoseconds, as returned by {@link System#nanoTime()}.
+     * @param cost     The time in nanoseconds it takes to refill one token.
+     * @param capacity The maximum credit of the bucket in nanoseconds, the burst size times the cost.
+     * @return {@code true} if a token could be taken.
+     */
+    public boolean hasToken(@Nonnull UUID id, long now, long cost, long capacity) {
+        Bucket bucket = buckets.get(id);
+        if (bucket == null) {
+            return capacity >= cost;
+        }
+
+        synchronized (bucket) {
+            return Math.min(capacity, bucket.credit + Math.max(0, now - bucket.lastRefill)) >= cost;
+        }
+    }
+
+    /**
+     * Remove the bucket of the given player.
+     *
+     * @param id The unique id of the player.
+     */
+    public void remove(@Nonnull UUID id) {
+        buckets.remove(id);
+    }
+
+    public void clear() {
+        buckets.clear();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private static final class Bucket {
+        private long lastRefill;
+        private long credit;
+
+        private Bucket(long lastRefill, long credit) {
+            this.lastRefill = lastRefill;
+            this.credit = credit;
+        }
+    }
+}
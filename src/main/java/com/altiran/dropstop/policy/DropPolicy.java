@@ -0,0 +1,384 @@
+package com.altiran.dropstop.policy;
+
+import com.altiran.dropstop.audit.AuditSettings;
+import com.altiran.dropstop.lag.LagSettings;
+import com.altiran.dropstop.message.LocalizedWarnings;
+import com.altiran.dropstop.message.WarningDisplay;
+import com.altiran.dropstop.message.WarningTemplate;
+import com.altiran.dropstop.network.NetworkRole;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Immutable snapshot of the drop settings, compiled once from the configuration.
+ *
+ * <p>The event handlers only ever read from a snapshot, so a reload builds a new instance and
+ * swaps it in as a whole instead of mutating the one that is currently in use.
+ */
+public final class DropPolicy {
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    private final DropRule globalRule;
+    private final Map<String, WorldPolicy> worlds;
+    private final ItemMatcher itemMatcher;
+    private final boolean warnPlayerOnDrop;
+    private final long warningTimeoutNanos;
+    private final WarningTemplate warningTemplate;
+    private final LocalizedWarnings warnings;
+    private final WarningDisplay warningDisplay;
+    private final boolean watchConfigFile;
+    private final int statsLogInterval;
+    private final AuditSettings auditSettings;
+    private final LagSettings lagSettings;
+    private final long rateLimitCostNanos;
+    private final long rateLimitCapacityNanos;
+    private final int chunkItemLimit;
+    private final double dropCompactionRadiusSquared;
+    private final boolean playerStats;
+    private final NetworkRole networkRole;
+    private final boolean dropChecked;
+
+    private DropPolicy(@Nonnull ConfigurationSection config, @Nonnull Logger logger, @Nullable DropPolicy previous) {
+        globalRule = DropRule.compile(config, null, logger);
+        worlds = compileWorlds(config, globalRule, logger, previous);
+        itemMatcher = ItemMatcher.compile(config.getConfigurationSection("item-rules"), logger);
+        warnPlayerOnDrop = config.getBoolean("warn-player-on-drop", false);
+        warningTimeoutNanos = Math.max(0, config.getInt("warning-timeout")) * NANOS_PER_SECOND;
+        warningTemplate = warnPlayerOnDrop ? WarningTemplate.compile(validateWarningMessage(config.getString("warning-message"))) : null;
+        warnings = warningTemplate == null ? null : LocalizedWarnings.compile(warningTemplate, config.getConfigurationSection("warning-messages"), logger);
+        warningDisplay = compileWarningDisplay(config.getString("warning-display"), logger);
+        watchConfigFile = config.getBoolean("watch-config-file", false);
+        statsLogInterval = Math.max(0, config.getInt("stats-log-interval", 0));
+        auditSettings = AuditSettings.compile(config.getConfigurationSection("audit-log"));
+        lagSettings = LagSettings.compile(config.getConfigurationSection("lag-protection"));
+
+        chunkItemLimit = Math.max(0, config.getInt("chunk-item-limit", 0));
+
+        ConfigurationSection compaction = config.getConfigurationSection("drop-compaction");
+        double radius = compaction != null && compaction.getBoolean("enabled", false) ? compaction.getDouble("radius", 2.0) : 0;
+        dropCompactionRadiusSquared = radius > 0 ? radius * radius : 0;
+
+        ConfigurationSection rateLimit = config.getConfigurationSection("rate-limit");
+        int drops = rateLimit == null ? 0 : rateLimit.getInt("drops", 0);
+        int window = rateLimit == null ? 0 : rateLimit.getInt("window", 0);
+        if (rateLimit != null && rateLimit.getBoolean("enabled", false) && drops > 0 && window > 0) {
+            rateLimitCostNanos = window * NANOS_PER_SECOND / drops;
+            rateLimitCapacityNanos = Math.max(1, rateLimit.getInt("burst", drops)) * rateLimitCostNanos;
+        } else {
+            rateLimitCostNanos = 0;
+            rateLimitCapacityNanos = 0;
+        }
+
+        playerStats = config.getBoolean("player-stats", false);
+        networkRole = compileNetworkRole(config.getConfigurationSection("network"), logger);
+        dropChecked = globalRule.isDisableItemDrops() || itemMatcher != null || hasBlockingWorld(worlds)
+                || chunkItemLimit > 0 || rateLimitCostNanos > 0 || lagSettings.enabled() || playerStats;
+    }
+
+    /**
+     * Compile a policy from the given configuration section.
+     *
+     * @param config The configuration to read the settings from.
+     * @param logger The logger to report invalid entries to.
+     * @return The compiled policy.
+     * @throws NullPointerException If warnings are enabled but no warning message is configured.
+     */
+    public static @Nonnull DropPolicy compile(@Nonnull ConfigurationSection config, @Nonnull Logger logger) {
+        return new DropPolicy(config, logger, null);
+    }
+
+    /**
+     * Compile a policy from the given configuration section, reusing what is unchanged from the previous policy.
+     *
+     * <p>The region index of each world is derived from the one of the previous policy, so only the
+     * chunks of regions that were added or removed are re-indexed.
+     *
+     * @param config   The configuration to read the settings from.
+     * @param logger   The logger to report invalid entries to.
+     * @param previous The currently active policy, or {@code null}.
+     * @return The compiled policy.
+     * @throws NullPointerException If warnings are enabled but no warning message is configured.
+     */
+    public static @Nonnull DropPolicy compile(@Nonnull ConfigurationSection config, @Nonnull Logger logger, @Nullable DropPolicy previous) {
+        return new DropPolicy(config, logger, previous);
+    }
+
+    private static @Nonnull String validateWarningMessage(@Nullable String msg) {
+        if (msg == null || msg.isEmpty()) {
+            throw new NullPointerException("The warn message you provided is not valid. If you don't want a warn message, please set 'warn-player-on-drop' to false. Or else if you want it, please provide a valid message and don't leave it blank.");
+        }
+        return msg;
+    }
+
+    private static @Nonnull WarningDisplay compileWarningDisplay(@Nullable String value, @Nonnull Logger logger) {
+        if (value == null) {
+            return WarningDisplay.CHAT;
+        }
+
+        WarningDisplay display = WarningDisplay.parse(value);
+        if (display == null) {
+            logger.log(Level.WARNING, "Unknown warning display {0}, using chat instead.", value);
+            return WarningDisplay.CHAT;
+        }
+        return display;
+    }
+
+    private static @Nullable NetworkRole compileNetworkRole(@Nullable ConfigurationSection section, @Nonnull Logger logger) {
+        if (section == null || !section.getBoolean("enabled", false)) {
+            return null;
+        }
+
+        String value = section.getString("role", "receive");
+        NetworkRole role = NetworkRole.parse(value);
+        if (role == null) {
+            logger.log(Level.WARNING, "Unknown network role {0}, the drop settings will not be distributed.", value);
+        }
+        return role;
+    }
+
+    private static boolean hasBlockingWorld(@Nonnull Map<String, WorldPolicy> worlds) {
+        for (WorldPolicy world : worlds.values()) {
+            if (world.hasRegions() || world.getRule().isDisableItemDrops()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static @Nonnull Map<String, WorldPolicy> compileWorlds(@Nonnull ConfigurationSection config, @Nonnull DropRule globalRule, @Nonnull Logger logger, @Nullable DropPolicy previous) {
+        Map<String, DropRule> worldRules = new HashMap<>();
+        ConfigurationSection worldsSection = config.getConfigurationSection("worlds");
+        if (worldsSection != null) {
+            for (String world : worldsSection.getKeys(false)) {
+                ConfigurationSection section = worldsSection.getConfigurationSection(world);
+                if (section != null) {
+                    worldRules.put(world, DropRule.compile(section, globalRule, logger));
+                }
+            }
+        }
+
+        Map<String, List<Region>> worldRegions = new HashMap<>();
+        ConfigurationSection regionsSection = config.getConfigurationSection("regions");
+        if (regionsSection != null) {
+            for (String name : regionsSection.getKeys(false)) {
+                ConfigurationSection section = regionsSection.getConfigurationSection(name);
+                if (section == null) {
+                    continue;
+                }
+
+                String world = section.getString("world");
+                Region region = Region.compile(section, worldRules.getOrDefault(world, globalRule), logger);
+                if (region != null) {
+                    worldRegions.computeIfAbsent(region.world(), key -> new ArrayList<>()).add(region);
+                }
+            }
+        }
+
+        Map<String, WorldPolicy> worlds = new HashMap<>();
+        for (Map.Entry<String, DropRule> entry : worldRules.entrySet()) {
+            worlds.put(entry.getKey(), new WorldPolicy(entry.getValue(), null));
+        }
+
+        for (Map.Entry<String, List<Region>> entry : worldRegions.entrySet()) {
+            WorldPolicy previousWorld = previous == null ? null : previous.worlds.get(entry.getKey());
+            RegionIndex index = RegionIndex.build(entry.getValue(), previousWorld == null ? null : previousWorld.getRegions());
+            worlds.put(entry.getKey(), new WorldPolicy(worldRules.getOrDefault(entry.getKey(), globalRule), index));
+        }
+
+        return Collections.unmodifiableMap(worlds);
+    }
+
+    public @Nonnull DropRule getGlobalRule() {
+        return globalRule;
+    }
+
+    /**
+     * Get the compiled item attribute rules.
+     *
+     * @return The matcher, or {@code null} if there are no item rules.
+     */
+    public @Nullable ItemMatcher getItemMatcher() {
+        return itemMatcher;
+    }
+
+    /**
+     * Get the rules of the given world.
+     *
+     * @param world The name of the world.
+     * @return The rules, or {@code null} if the world has no rules of its own.
+     */
+    public @Nullable WorldPolicy getWorld(@Nonnull String world) {
+        return worlds.get(world);
+    }
+
+    /**
+     * Resolve the rule that applies at the location of the given entity.
+     *
+     * <p>The location is only read if the world of the entity has regions.
+     *
+     * @param entity  The entity, usually the dropped item.
+     * @param scratch A location to copy the position of the entity into, to avoid allocating a new one.
+     * @return The rule of the region, world or server, whichever is the most specific.
+     */
+    public @Nonnull DropRule ruleAt(@Nonnull Entity entity, @Nonnull Location scratch) {
+        if (worlds.isEmpty()) {
+            return globalRule;
+        }
+
+        WorldPolicy world = worlds.get(entity.getWorld().getName());
+        if (world == null) {
+            return globalRule;
+        }
+
+        if (!world.hasRegions()) {
+            return world.getRule();
+        }
+
+        Location location = entity.getLocation(scratch);
+        return world.ruleAt(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    public boolean isDisableItemDrops() {
+        return globalRule.isDisableItemDrops();
+    }
+
+    public boolean isWarnPlayerOnDrop() {
+        return warnPlayerOnDrop;
+    }
+
+    public boolean isItemAllowlisting() {
+        return globalRule.isItemAllowlisting();
+    }
+
+    public long getWarningTimeoutNanos() {
+        return warningTimeoutNanos;
+    }
+
+    public @Nullable WarningTemplate getWarningTemplate() {
+        return warningTemplate;
+    }
+
+    /**
+     * Get the warning messages per client language.
+     *
+     * @return The messages, or {@code null} if players are not warned.
+     */
+    public @Nullable LocalizedWarnings getWarnings() {
+        return warnings;
+    }
+
+    public @Nonnull Set<Material> getAllowlist() {
+        return globalRule.getAllowlist();
+    }
+
+    public @Nonnull WarningDisplay getWarningDisplay() {
+        return warningDisplay;
+    }
+
+    public boolean isWatchConfigFile() {
+        return watchConfigFile;
+    }
+
+    /**
+     * Get the interval in minutes between two statistics summaries in the log, or 0 if disabled.
+     */
+    public int getStatsLogInterval() {
+        return statsLogInterval;
+    }
+
+    /**
+     * Check whether the drop rate of players is limited, for drops that the rules allow.
+     */
+    public boolean isRateLimited() {
+        return rateLimitCostNanos > 0;
+    }
+
+    /**
+     * Get the time in nanoseconds it takes for a player to earn another drop, or 0 if drops are not rate limited.
+     */
+    public long getRateLimitCostNanos() {
+        return rateLimitCostNanos;
+    }
+
+    /**
+     * Get the maximum drop credit of a player in nanoseconds, the burst size times the cost of a drop.
+     */
+    public long getRateLimitCapacityNanos() {
+        return rateLimitCapacityNanos;
+    }
+
+    /**
+     * Get the number of item entities a chunk may hold before drops in it are blocked, or 0 if disabled.
+     */
+    public int getChunkItemLimit() {
+        return chunkItemLimit;
+    }
+
+    /**
+     * Check whether allowed drops are merged with similar stacks that were recently dropped nearby.
+     */
+    public boolean isDropCompaction() {
+        return dropCompactionRadiusSquared > 0;
+    }
+
+    /**
+     * Get the squared maximum distance between two drops to be merged, or 0 if drop compaction is disabled.
+     */
+    public double getDropCompactionRadiusSquared() {
+        return dropCompactionRadiusSquared;
+    }
+
+    /**
+     * Check whether any setting can block a drop or drops are counted per player. If not, drops don't have to be checked at all.
+     */
+    public boolean isDropChecked() {
+        return dropChecked;
+    }
+
+    /**
+     * Check whether drops are counted per player in the persistent player statistics.
+     */
+    public boolean isPlayerStats() {
+        return playerStats;
+    }
+
+    /**
+     * Get the role of this server in the network-wide distribution of the drop settings.
+     *
+     * @return The role, or {@code null} if the settings are not distributed.
+     */
+    public @Nullable NetworkRole getNetworkRole() {
+        return networkRole;
+    }
+
+    public @Nonnull AuditSettings getAuditSettings() {
+        return auditSettings;
+    }
+
+    public @Nonnull LagSettings getLagSettings() {
+        return lagSettings;
+    }
+
+    /**
+     * Check whether the given material may be dropped under the global rule.
+     *
+     * @param material The material of the dropped item.
+     * @return {@code true} if the drop has to be cancelled.
+     */
+    public boolean blocks(@Nonnull Material material) {
+        return globalRule.blocks(material);
+    }
+}
@@ -0,0 +1,161 @@
+package com.altiran.dropstop.policy;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Tag;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Immutable set of drop settings that applies to the whole server, a world or a region.
+ */
+public final class DropRule {
+    private static final String TAG_PREFIX = "#";
+
+    private final boolean disableItemDrops;
+    private final boolean itemAllowlisting;
+    private final Set<Material> allowlist;
+
+    private DropRule(boolean disableItemDrops, boolean itemAllowlisting, @Nonnull Set<Material> allowlist) {
+        this.disableItemDrops = disableItemDrops;
+        this.itemAllowlisting = itemAllowlisting;
+        this.allowlist = allowlist;
+    }
+
+    /**
+     * Compile a rule from the given configuration section.
+     *
+     * <p>Settings that are not present in the section are inherited from the parent rule. Entries of
+     * the allowlist starting with {@code #} are resolved as item tags (e.g. {@code #logs} or
+     * {@code #minecraft:planks}) and expanded into their materials. Unknown entries are skipped with a warning.
+     *
+     * @param section The configuration section to read the settings from.
+     * @param parent  The rule to inherit missing settings from, or {@code null} for the global rule.
+     * @param logger  The logger to report invalid entries to.
+     * @return The compiled rule.
+     */
+    public static @Nonnull DropRule compile(@Nonnull ConfigurationSection section, @Nullable DropRule parent, @Nonnull Logger logger) {
+        boolean disableItemDrops = parent == null || section.isSet("disable-item-drops")
+                ? section.getBoolean("disable-item-drops", false)
+                : parent.disableItemDrops;
+        boolean itemAllowlisting = parent == null || section.isSet("item-allowlisting")
+                ? section.getBoolean("item-allowlisting", false)
+                : parent.itemAllowlisting;
+
+        Set<Material> allowlist;
+        if (parent == null || section.isSet("item-allowlist")) {
+            Set<Material> materials = EnumSet.noneOf(Material.class);
+            for (String entry : section.getStringList("item-allowlist")) {
+                addAllowlistEntry(materials, entry, logger);
+            }
+            allowlist = Collections.unmodifiableSet(materials);
+        } else {
+            allowlist = parent.allowlist;
+        }
+
+        return new DropRule(disableItemDrops, itemAllowlisting, allowlist);
+    }
+
+    private static void addAllowlistEntry(@Nonnull Set<Material> allowlist, @Nullable String entry, @Nonnull Logger logger) {
+        if (entry == null || entry.isBlank()) {
+            return;
+        }
+
+        String value = entry.trim();
+        if (value.startsWith(TAG_PREFIX)) {
+            Tag<Material> tag = resolveTag(value.substring(TAG_PREFIX.length()));
+            if (tag == null) {
+                logger.log(Level.WARNING, "Unknown item tag in allowlist: {0}", value);
+            } else {
+                allowlist.addAll(tag.getValues());
+            }
+            return;
+        }
+
+        Material material = Material.getMaterial(value);
+        if (material == null) {
+            material = Material.getMaterial(value.toUpperCase(Locale.ROOT));
+        }
+
+        if (material == null) {
+            logger.log(Level.WARNING, "Unknown material in allowlist: {0}", value);
+        } else {
+            allowlist.add(material);
+        }
+    }
+
+    private static @Nullable Tag<Material> resolveTag(@Nonnull String name) {
+        NamespacedKey key = NamespacedKey.fromString(name.toLowerCase(Locale.ROOT));
+        if (key == null) {
+            return null;
+        }
+
+        Tag<Material> tag = Bukkit.getTag(Tag.REGISTRY_ITEMS, key, Material.class);
+        if (tag == null) {
+            tag = Bukkit.getTag(Tag.REGISTRY_BLOCKS, key, Material.class);
+        }
+        return tag;
+    }
+
+    public boolean isDisableItemDrops() {
+        return disableItemDrops;
+    }
+
+    public boolean isItemAllowlisting() {
+        return itemAllowlisting;
+    }
+
+    public @Nonnull Set<Material> getAllowlist() {
+        return allowlist;
+    }
+
+    /**
+     * Check whether the given material may be dropped under this rule.
+     *
+     * @param material The material of the dropped item.
+     * @return {@code true} if the drop has to be cancelled.
+     */
+    public boolean blocks(@Nonnull Material material) {
+        if (!disableItemDrops) {
+            return false;
+        }
+        return !itemAllowlisting || !allowlist.contains(material);
+    }
+
+    /**
+     * Check whether the given material would be blocked under this rule if item drops were disabled,
+     * e.g. while the server is lagging.
+     *
+     * @param material The material of the dropped item.
+     * @return {@code true} if the drop has to be cancelled.
+     */
+    public boolean blocksIfDisabled(@Nonnull Material material) {
+        return !itemAllowlisting || !allowlist.contains(material);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof DropRule other)) {
+            return false;
+        }
+        return disableItemDrops == other.disableItemDrops && itemAllowlisting == other.itemAllowlisting && allowlist.equals(other.allowlist);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(disableItemDrops, itemAllowlisting, allowlist);
+    }
+}
@@ -0,0 +1,119 @@
+package com.altiran.dropstop.policy;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Compiled item attribute rules, matched against the dropped item before the regular drop rules.
+ *
+ * <p>Rules are grouped by material up front, so items of a material without rules are rejected after
+ * an array lookup and their meta is never read. The meta is also skipped for items without one and when
+ * the first rule of the material does not look at it. Only the remaining items have their meta copied
+ * and inspected. Results are not cached: a key that identifies the meta would have to compare the whole
+ * meta, which costs as much as the checks of the rules.
+ */
+public final class ItemMatcher {
+    private final ItemRule[][] rules;
+
+    private ItemMatcher(@Nonnull ItemRule[][] rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Compile the item rules of the given configuration section.
+     *
+     * @param section The configuration section with one subsection per rule.
+     * @param logger  The logger to report invalid rules to.
+     * @return The compiled matcher, or {@code null} if there are no valid rules.
+     */
+    public static @Nullable ItemMatcher compile(@Nullable ConfigurationSection section, @Nonnull Logger logger) {
+        if (section == null) {
+            return null;
+        }
+
+        List<ItemRule> compiled = new ArrayList<>();
+        for (String name : section.getKeys(false)) {
+            ConfigurationSection ruleSection = section.getConfigurationSection(name);
+            if (ruleSection != null) {
+                ItemRule rule = ItemRule.compile(ruleSection, logger);
+                if (rule != null) {
+                    compiled.add(rule);
+                }
+            }
+        }
+
+        if (compiled.isEmpty()) {
+            return null;
+        }
+
+        Material[] materials = Material.values();
+        ItemRule[][] rules = new ItemRule[materials.length][];
+        for (Material material : materials) {
+            List<ItemRule> applicable = new ArrayList<>();
+            for (ItemRule rule : compiled) {
+                if (rule.appliesTo(material)) {
+                    applicable.add(rule);
+                }
+            }
+
+            if (!applicable.isEmpty()) {
+                rules[material.ordinal()] = applicable.toArray(new ItemRule[0]);
+            }
+        }
+
+        return new ItemMatcher(rules);
+    }
+
+    /**
+     * Match the given item against the rules. The first matching rule decides.
+     *
+     * @param item The dropped item.
+     * @return The result of the first matching rule, or {@link Result#ABSTAIN} if none matches.
+     */
+    public @Nonnull Result match(@Nonnull ItemStack item) {
+        ItemRule[] candidates = rules[item.getType().ordinal()];
+        if (candidates == null) {
+            return Result.ABSTAIN;
+        }
+
+        if (!item.hasItemMeta() || !candidates[0].requiresMeta()) {
+            return matchRules(candidates, null);
+        }
+        return matchRules(candidates, item.getItemMeta());
+    }
+
+    private static @Nonnull Result matchRules(@Nonnull ItemRule[] candidates, @Nullable ItemMeta meta) {
+        for (ItemRule rule : candidates) {
+            if (rule.matches(meta)) {
+                return rule.allow() ? Result.ALLOW : Result.DENY;
+            }
+        }
+        return Result.ABSTAIN;
+    }
+
+    /**
+     * Result of matching an item against the rules.
+     */
+    public enum Result {
+        /**
+         * A rule explicitly allows the drop.
+         */
+        ALLOW,
+        /**
+         * A rule explicitly blocks the drop.
+         */
+        DENY,
+        /**
+         * No rule matches, the regular drop rules decide.
+         */
+        ABSTAIN
+    }
+}
@@ -0,0 +1,130 @@
+package com.altiran.dropstop.policy;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Registry;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Single item attribute rule, matching items by their material and meta.
+ *
+ * @param name            The name of the rule in the configuration.
+ * @param allow           Whether matching items are allowed ({@code true}) or blocked ({@code false}).
+ * @param materials       The materials the rule applies to, or {@code null} for all materials.
+ * @param customModelData The required custom model data, or {@code null}.
+ * @param displayName     The required display name with colour codes translated, or {@code null}.
+ * @param enchantments    The enchantments the item must all have.
+ * @param dataKeys        The persistent data keys the item must all have.
+ */
+record ItemRule(@Nonnull String name, boolean allow, @Nullable Set<Material> materials, @Nullable Integer customModelData, @Nullable String displayName, @Nonnull List<Enchantment> enchantments, @Nonnull List<NamespacedKey> dataKeys) {
+    private static final char COLOR_CHAR = '&';
+    private static final char MC_CHAR = (char) 167;
+
+    static @Nullable ItemRule compile(@Nonnull ConfigurationSection section, @Nonnull Logger logger) {
+        String action = section.getString("action", "deny").toLowerCase(Locale.ROOT);
+        if (!action.equals("allow") && !action.equals("deny")) {
+            logger.log(Level.WARNING, "Invalid item rule {0}: the action must be either allow or deny.", section.getName());
+            return null;
+        }
+
+        Set<Material> materials = null;
+        if (section.isSet("materials")) {
+            materials = EnumSet.noneOf(Material.class);
+            for (String entry : section.getStringList("materials")) {
+                Material material = Material.getMaterial(entry.trim().toUpperCase(Locale.ROOT));
+                if (material == null) {
+                    logger.log(Level.WARNING, "Unknown material in item rule {0}: {1}", new Object[]{section.getName(), entry});
+                } else {
+                    materials.add(material);
+                }
+            }
+        }
+
+        Integer customModelData = section.isInt("custom-model-data") ? section.getInt("custom-model-data") : null;
+        String displayName = section.getString("display-name");
+        if (displayName != null) {
+            displayName = displayName.replace(COLOR_CHAR, MC_CHAR);
+        }
+
+        List<Enchantment> enchantments = new ArrayList<>();
+        for (String entry : section.getStringList("enchantments")) {
+            NamespacedKey key = NamespacedKey.fromString(entry.trim().toLowerCase(Locale.ROOT));
+            Enchantment enchantment = key == null ? null : Registry.ENCHANTMENT.get(key);
+            if (enchantment == null) {
+                logger.log(Level.WARNING, "Unknown enchantment in item rule {0}: {1}", new Object[]{section.getName(), entry});
+            } else {
+                enchantments.add(enchantment);
+            }
+        }
+
+        List<NamespacedKey> dataKeys = new ArrayList<>();
+        for (String entry : section.getStringList("data-keys")) {
+            NamespacedKey key = NamespacedKey.fromString(entry.trim().toLowerCase(Locale.ROOT));
+            if (key == null) {
+                logger.log(Level.WARNING, "Invalid persistent data key in item rule {0}: {1}", new Object[]{section.getName(), entry});
+            } else {
+                dataKeys.add(key);
+            }
+        }
+
+        return new ItemRule(section.getName(), action.equals("allow"), materials, customModelData, displayName, List.copyOf(enchantments), List.copyOf(dataKeys));
+    }
+
+    boolean appliesTo(@Nonnull Material material) {
+        return materials == null || materials.contains(material);
+    }
+
+    boolean requiresMeta() {
+        return customModelData != null || displayName != null || !enchantments.isEmpty() || !dataKeys.isEmpty();
+    }
+
+    /**
+     * Check whether an item of a material this rule applies to matches its meta requirements.
+     *
+     * <p>The display name is read as a legacy string, as its component based replacement only exists on Paper.
+     *
+     * @param meta The meta of the item, or {@code null} if the item has none.
+     */
+    @SuppressWarnings("deprecation")
+    boolean matches(@Nullable ItemMeta meta) {
+        if (!requiresMeta()) {
+            return true;
+        }
+        if (meta == null) {
+            return false;
+        }
+
+        if (customModelData != null && (!meta.hasCustomModelData() || meta.getCustomModelData() != customModelData)) {
+            return false;
+        }
+        if (displayName != null && (!meta.hasDisplayName() || !displayName.equals(meta.getDisplayName()))) {
+            return false;
+        }
+        for (Enchantment enchantment : enchantments) {
+            if (!meta.hasEnchant(enchantment)) {
+                return false;
+            }
+        }
+        if (!dataKeys.isEmpty()) {
+            Set<NamespacedKey> keys = meta.getPersistentDataContainer().getKeys();
+            for (NamespacedKey key : dataKeys) {
+                if (!keys.contains(key)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
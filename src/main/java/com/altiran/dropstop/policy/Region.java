@@ -0,0 +1,82 @@
+package com.altiran.dropstop.policy;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cuboid area of a world with its own drop rule.
+ *
+ * @param name     The name of the region in the configuration.
+ * @param world    The name of the world the region is in.
+ * @param minX     The lowest block x coordinate inside the region.
+ * @param minY     The lowest block y coordinate inside the region.
+ * @param minZ     The lowest block z coordinate inside the region.
+ * @param maxX     The highest block x coordinate inside the region.
+ * @param maxY     The highest block y coordinate inside the region.
+ * @param maxZ     The highest block z coordinate inside the region.
+ * @param priority The priority of the region when it overlaps with others, the highest wins.
+ * @param rule     The drop rule inside the region.
+ */
+public record Region(@Nonnull String name, @Nonnull String world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int priority, @Nonnull DropRule rule) implements Comparable<Region> {
+    /**
+     * Compile a region from the given configuration section.
+     *
+     * <p>The bounds are given as {@code min} and {@code max} lists of either {@code [x, y, z]} or
+     * {@code [x, z]}, the latter spanning the full height of the world.
+     *
+     * @param section The configuration section of the region.
+     * @param parent  The rule to inherit missing settings from, usually the rule of the world.
+     * @param logger  The logger to report invalid regions to.
+     * @return The compiled region, or {@code null} if the section is invalid.
+     */
+    public static @Nullable Region compile(@Nonnull ConfigurationSection section, @Nonnull DropRule parent, @Nonnull Logger logger) {
+        String world = section.getString("world");
+        List<Integer> min = section.getIntegerList("min");
+        List<Integer> max = section.getIntegerList("max");
+
+        if (world == null || world.isBlank() || !isValidBounds(min) || !isValidBounds(max) || min.size() != max.size()) {
+            logger.log(Level.WARNING, "Invalid region {0}: a world and min/max bounds as [x, y, z] or [x, z] are required.", section.getName());
+            return null;
+        }
+
+        boolean hasY = min.size() == 3;
+        int x1 = min.get(0);
+        int x2 = max.get(0);
+        int y1 = hasY ? min.get(1) : Integer.MIN_VALUE;
+        int y2 = hasY ? max.get(1) : Integer.MAX_VALUE;
+        int z1 = min.get(hasY ? 2 : 1);
+        int z2 = max.get(hasY ? 2 : 1);
+
+        return new Region(section.getName(), world, Math.min(x1, x2), Math.min(y1, y2), Math.min(z1, z2), Math.max(x1, x2), Math.max(y1, y2), Math.max(z1, z2),
+                section.getInt("priority", 0), DropRule.compile(section, parent, logger));
+    }
+
+    private static boolean isValidBounds(@Nonnull List<Integer> bounds) {
+        return bounds.size() == 2 || bounds.size() == 3;
+    }
+
+    /**
+     * Check whether the given block coordinates are inside the region.
+     */
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    /**
+     * Get the number of chunks the region overlaps.
+     */
+    public long chunkCount() {
+        return ((long) (maxX >> 4) - (minX >> 4) + 1) * ((long) (maxZ >> 4) - (minZ >> 4) + 1);
+    }
+
+    @Override
+    public int compareTo(@Nonnull Region other) {
+        int result = Integer.compare(other.priority, priority);
+        return result != 0 ? result : name.compareTo(other.name);
+    }
+}
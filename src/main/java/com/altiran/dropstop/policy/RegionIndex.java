@@ -0,0 +1,164 @@
+package com.altiran.dropstop.policy;
+
+import com.altiran.dropstop.utils.ChunkKeys;
+import com.altiran.dropstop.utils.LongObjectHashMap;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Spatial index of the regions of a single world, keyed by packed chunk coordinates.
+ *
+ * <p>Every chunk maps to the regions overlapping it, ordered by priority, so a lookup is one hash
+ * probe followed by containment checks of only those regions. Regions spanning more than
+ * {@value #MAX_INDEXED_CHUNKS} chunks are not indexed and are checked on every lookup instead, to keep
+ * the index small.
+ *
+ * <p>An index is immutable once built. When the configuration changes, the new index is derived from
+ * the previous one and only the chunks of added or removed regions are touched.
+ */
+public final class RegionIndex {
+    /**
+     * The maximum number of chunks a region may span to be indexed per chunk.
+     */
+    public static final long MAX_INDEXED_CHUNKS = 4096;
+    private static final Region[] NO_REGIONS = new Region[0];
+
+    private final Set<Region> regions;
+    private final LongObjectHashMap<Region[]> chunks;
+    private final Region[] oversized;
+
+    private RegionIndex(@Nonnull Set<Region> regions, @Nonnull LongObjectHashMap<Region[]> chunks, @Nonnull Region[] oversized) {
+        this.regions = regions;
+        this.chunks = chunks;
+        this.oversized = oversized;
+    }
+
+    /**
+     * Build an index of the given regions.
+     *
+     * @param regions  The regions of the world.
+     * @param previous The previous index of the same world to derive the new one from, or {@code null}.
+     * @return The built index.
+     */
+    public static @Nonnull RegionIndex build(@Nonnull List<Region> regions, @Nullable RegionIndex previous) {
+        Set<Region> next = new HashSet<>(regions);
+        Set<Region> current = previous == null ? Set.of() : previous.regions;
+        LongObjectHashMap<Region[]> chunks = previous == null ? new LongObjectHashMap<>() : new LongObjectHashMap<>(previous.chunks);
+
+        for (Region region : current) {
+            if (!next.contains(region) && isIndexed(region)) {
+                removeFromChunks(chunks, region);
+            }
+        }
+
+        for (Region region : next) {
+            if (!current.contains(region) && isIndexed(region)) {
+                addToChunks(chunks, region);
+            }
+        }
+
+        List<Region> oversized = new ArrayList<>();
+        for (Region region : next) {
+            if (!isIndexed(region)) {
+                oversized.add(region);
+            }
+        }
+
+        Region[] sorted = oversized.toArray(NO_REGIONS);
+        Arrays.sort(sorted);
+        return new RegionIndex(next, chunks, sorted);
+    }
+
+    private static boolean isIndexed(@Nonnull Region region) {
+        return region.chunkCount() <= MAX_INDEXED_CHUNKS;
+    }
+
+    private static void addToChunks(@Nonnull LongObjectHashMap<Region[]> chunks, @Nonnull Region region) {
+        for (int cx = region.minX() >> 4; cx <= region.maxX() >> 4; cx++) {
+            for (int cz = region.minZ() >> 4; cz <= region.maxZ() >> 4; cz++) {
+                long key = ChunkKeys.pack(cx, cz);
+                Region[] existing = chunks.get(key);
+                Region[] updated;
+                if (existing == null) {
+                    updated = new Region[]{region};
+                } else {
+                    updated = Arrays.copyOf(existing, existing.length + 1);
+                    updated[existing.length] = region;
+                    Arrays.sort(updated);
+                }
+                chunks.put(key, updated);
+            }
+        }
+    }
+
+    private static void removeFromChunks(@Nonnull LongObjectHashMap<Region[]> chunks, @Nonnull Region region) {
+        for (int cx = region.minX() >> 4; cx <= region.maxX() >> 4; cx++) {
+            for (int cz = region.minZ() >> 4; cz <= region.maxZ() >> 4; cz++) {
+                long key = ChunkKeys.pack(cx, cz);
+                Region[] existing = chunks.get(key);
+                if (existing == null) {
+                    continue;
+                }
+
+                Region[] updated = new Region[existing.length - 1];
+                int size = 0;
+                for (Region other : existing) {
+                    if (!other.equals(region) && size < updated.length) {
+                        updated[size++] = other;
+                    }
+                }
+
+                if (size == 0) {
+                    chunks.remove(key);
+                } else {
+                    chunks.put(key, updated);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the region with the highest priority at the given block coordinates.
+     *
+     * @return The region, or {@code null} if no region contains the coordinates.
+     */
+    public @Nullable Region find(int x, int y, int z) {
+        Region found = null;
+        Region[] candidates = chunks.get(ChunkKeys.ofBlock(x, z));
+        if (candidates != null) {
+            for (Region region : candidates) {
+                if (region.contains(x, y, z)) {
+                    found = region;
+                    break;
+                }
+            }
+        }
+
+        for (Region region : oversized) {
+            if (found != null && region.compareTo(found) >= 0) {
+                break; // The remaining regions have a lower priority
+            }
+            if (region.contains(x, y, z)) {
+                return region;
+            }
+        }
+        return found;
+    }
+
+    public int size() {
+        return regions.size();
+    }
+
+    /**
+     * Get the number of chunks that have at least one region indexed.
+     */
+    public int indexedChunks() {
+        return chunks.size();
+    }
+}
@@ -0,0 +1,43 @@
+package com.altiran.dropstop.policy;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * Drop rules of a single world: the rule of the world itself and the index of its regions.
+ */
+public final class WorldPolicy {
+    private final DropRule rule;
+    private final RegionIndex regions;
+
+    WorldPolicy(@Nonnull DropRule rule, @Nullable RegionIndex regions) {
+        this.rule = rule;
+        this.regions = regions;
+    }
+
+    public @Nonnull DropRule getRule() {
+        return rule;
+    }
+
+    public @Nullable RegionIndex getRegions() {
+        return regions;
+    }
+
+    public boolean hasRegions() {
+        return regions != null && regions.size() > 0;
+    }
+
+    /**
+     * Resolve the rule that applies at the given block coordinates.
+     *
+     * @return The rule of the region with the highest priority, or the rule of the world if there is none.
+     */
+    public @Nonnull DropRule ruleAt(int x, int y, int z) {
+        if (regions == null) {
+            return rule;
+        }
+
+        Region region = regions.find(x, y, z);
+        return region == null ? rule : region.rule();
+    }
+}
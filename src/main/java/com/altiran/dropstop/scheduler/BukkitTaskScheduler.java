@@ -0,0 +1,68 @@
+package com.altiran.dropstop.scheduler;
+
+import jakarta.annotation.Nonnull;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Scheduler for servers with a single main thread.
+ */
+final class BukkitTaskScheduler implements TaskScheduler {
+    private final Plugin plugin;
+
+    BukkitTaskScheduler(@Nonnull Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void runGlobal(@Nonnull Runnable task) {
+        plugin.getServer().getScheduler().runTask(plugin, task);
+    }
+
+    @Override
+    public @Nonnull Task runGlobalTimer(@Nonnull Runnable task, long delay, long period) {
+        BukkitTask scheduled = plugin.getServer().getScheduler().runTaskTimer(plugin, task, delay, period);
+        return scheduled::cancel;
+    }
+
+    @Override
+    public void runAtChunk(@Nonnull World world, int chunkX, int chunkZ, @Nonnull Runnable task) {
+        plugin.getServer().getScheduler().runTask(plugin, task);
+    }
+
+    @Override
+    public void runForEntity(@Nonnull Entity entity, @Nonnull Runnable task) {
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            if (entity.isValid()) {
+                task.run();
+            }
+        });
+    }
+
+    @Override
+    public void executeForEntity(@Nonnull Entity entity, @Nonnull Runnable task) {
+        if (plugin.getServer().isPrimaryThread()) {
+            task.run();
+        } else {
+            runForEntity(entity, task);
+        }
+    }
+
+    @Override
+    public void runAsync(@Nonnull Runnable task) {
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, task);
+    }
+
+    @Override
+    public @Nonnull Task runAsyncTimer(@Nonnull Runnable task, long delay, long period) {
+        BukkitTask scheduled = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, task, delay, period);
+        return scheduled::cancel;
+    }
+
+    @Override
+    public void cancelAll() {
+        plugin.getServer().getScheduler().cancelTasks(plugin);
+    }
+}
@@ -0,0 +1,69 @@
+package com.altiran.dropstop.scheduler;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import jakarta.annotation.Nonnull;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler for Folia, where every region of a world is ticked by its own thread.
+ */
+final class FoliaTaskScheduler implements TaskScheduler {
+    private static final long MILLIS_PER_TICK = 50L;
+
+    private final Plugin plugin;
+
+    FoliaTaskScheduler(@Nonnull Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void runGlobal(@Nonnull Runnable task) {
+        plugin.getServer().getGlobalRegionScheduler().execute(plugin, task);
+    }
+
+    @Override
+    public @Nonnull Task runGlobalTimer(@Nonnull Runnable task, long delay, long period) {
+        ScheduledTask scheduled = plugin.getServer().getGlobalRegionScheduler().runAtFixedRate(plugin, ignored -> task.run(), Math.max(1L, delay), period);
+        return scheduled::cancel;
+    }
+
+    @Override
+    public void runAtChunk(@Nonnull World world, int chunkX, int chunkZ, @Nonnull Runnable task) {
+        plugin.getServer().getRegionScheduler().execute(plugin, world, chunkX, chunkZ, task);
+    }
+
+    @Override
+    public void runForEntity(@Nonnull Entity entity, @Nonnull Runnable task) {
+        entity.getScheduler().run(plugin, ignored -> task.run(), null);
+    }
+
+    @Override
+    public void executeForEntity(@Nonnull Entity entity, @Nonnull Runnable task) {
+        if (plugin.getServer().isOwnedByCurrentRegion(entity)) {
+            task.run();
+        } else {
+            runForEntity(entity, task);
+        }
+    }
+
+    @Override
+    public void runAsync(@Nonnull Runnable task) {
+        plugin.getServer().getAsyncScheduler().runNow(plugin, ignored -> task.run());
+    }
+
+    @Override
+    public @Nonnull Task runAsyncTimer(@Nonnull Runnable task, long delay, long period) {
+        ScheduledTask scheduled = plugin.getServer().getAsyncScheduler().runAtFixedRate(plugin, ignored -> task.run(), Math.max(1L, delay) * MILLIS_PER_TICK, period * MILLIS_PER_TICK, TimeUnit.MILLISECONDS);
+        return scheduled::cancel;
+    }
+
+    @Override
+    public void cancelAll() {
+        plugin.getServer().getGlobalRegionScheduler().cancelTasks(plugin);
+        plugin.getServer().getAsyncScheduler().cancelTasks(plugin);
+    }
+}
@@ -0,0 +1,115 @@
+package com.altiran.dropstop.scheduler;
+
+import jakarta.annotation.Nonnull;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Schedules the tasks of the plugin on the right thread for the server implementation.
+ *
+ * <p>On Folia, there is no single main thread: global work runs on the global region scheduler and
+ * work touching an entity runs on the scheduler of the region that owns the entity. On other servers,
+ * both run on the main thread.
+ */
+public interface TaskScheduler {
+    /**
+     * Create the scheduler that matches the running server.
+     *
+     * @param plugin The plugin to schedule the tasks for.
+     * @return The Folia scheduler on Folia, otherwise the Bukkit scheduler.
+     */
+    static @Nonnull TaskScheduler create(@Nonnull Plugin plugin) {
+        return isFolia() ? new FoliaTaskScheduler(plugin) : new BukkitTaskScheduler(plugin);
+    }
+
+    /**
+     * Check whether the server is running Folia.
+     */
+    static boolean isFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Run a task on the global region, or the main thread, on the next tick.
+     *
+     * @param task The task to run.
+     */
+    void runGlobal(@Nonnull Runnable task);
+
+    /**
+     * Run a task repeatedly on the global region, or the main thread.
+     *
+     * @param task   The task to run.
+     * @param delay  The delay in ticks before the first run, at least 1.
+     * @param period The period in ticks between two runs.
+     * @return The handle to cancel the task with.
+     */
+    @Nonnull Task runGlobalTimer(@Nonnull Runnable task, long delay, long period);
+
+    /**
+     * Run a task on the thread that owns the given chunk, on the next tick.
+     *
+     * @param world  The world of the chunk.
+     * @param chunkX The x coordinate of the chunk.
+     * @param chunkZ The z coordinate of the chunk.
+     * @param task   The task to run.
+     */
+    void runAtChunk(@Nonnull World world, int chunkX, int chunkZ, @Nonnull Runnable task);
+
+    /**
+     * Run a task on the thread that owns the given entity, on the next tick.
+     *
+     * <p>The task is not run if the entity is removed before that.
+     *
+     * @param entity The entity the task works with.
+     * @param task   The task to run.
+     */
+    void runForEntity(@Nonnull Entity entity, @Nonnull Runnable task);
+
+    /**
+     * Run a task on the thread that owns the given entity, immediately if that is the current thread.
+     *
+     * @param entity The entity the task works with.
+     * @param task   The task to run.
+     */
+    void executeForEntity(@Nonnull Entity entity, @Nonnull Runnable task);
+
+    /**
+     * Run a task on an asynchronous thread.
+     *
+     * @param task The task to run.
+     */
+    void runAsync(@Nonnull Runnable task);
+
+    /**
+     * Run a task repeatedly on an asynchronous thread.
+     *
+     * @param task   The task to run.
+     * @param delay  The delay in ticks before the first run, at least 1.
+     * @param period The period in ticks between two runs.
+     * @return The handle to cancel the task with.
+     */
+    @Nonnull Task runAsyncTimer(@Nonnull Runnable task, long delay, long period);
+
+    /**
+     * Cancel all tasks of the plugin.
+     */
+    void cancelAll();
+
+    /**
+     * Handle of a scheduled task.
+     */
+    @FunctionalInterface
+    interface Task {
+        /**
+         * Cancel the task. Has no effect if it has already been cancelled.
+         */
+        void cancel();
+    }
+}
@@ -0,0 +1,81 @@
+package com.altiran.dropstop.trace;
+
+import com.altiran.dropstop.policy.DropRule;
+import jakarta.annotation.Nonnull;
+import org.bukkit.Material;
+
+/**
+ * The outcome of a drop check and the path that led to it, packed into a single {@code int}.
+ *
+ * <p>The lowest bits hold the reason of the outcome, the bits above it are flags for each step of the
+ * check that was taken. The checks build the path as they go, so tracing a decision costs no more
+ * than a few bit operations.
+ */
+public final class DecisionTrace {
+    public static final int ALLOWED = 0;
+    public static final int BLOCKED = 1;
+    public static final int LAG_BLOCKED = 2;
+    public static final int CHUNK_LIMITED = 3;
+    public static final int RATE_LIMITED = 4;
+    public static final int REASON_MASK = 0xF;
+
+    public static final int ITEM_RULE_ALLOWED = 1 << 4;
+    public static final int ITEM_RULE_DENIED = 1 << 5;
+    public static final int PREDICATE_ALLOWED = 1 << 6;
+    public static final int PREDICATE_DENIED = 1 << 7;
+    public static final int DROPS_DISABLED = 1 << 8;
+    public static final int ALLOWLISTING = 1 << 9;
+    public static final int ALLOWLIST_HIT = 1 << 10;
+    public static final int LAGGING = 1 << 11;
+    public static final int BYPASSED = 1 << 12;
+    public static final int WARNING_ENABLED = 1 << 13;
+    public static final int ON_COOLDOWN = 1 << 14;
+    public static final int WARNED = 1 << 15;
+
+    private static final String[] REASONS = {"allowed", "blocked", "lag-blocked", "chunk-limited", "rate-limited"};
+    private static final String[] FLAGS = {
+        "item-rule-allowed", "item-rule-denied", "predicate-allowed", "predicate-denied", "drops-disabled",
+        "allowlisting", "allowlist-hit", "lagging", "bypassed", "warning-enabled", "on-cooldown", "warned"
+    };
+    private static final int FIRST_FLAG = 4;
+
+    private DecisionTrace() {
+    }
+
+    /**
+     * Get the flags describing how a rule treats the given material.
+     *
+     * @param rule     The rule that applies to the drop.
+     * @param material The material of the dropped item.
+     * @return The flags of the rule.
+     */
+    public static int ruleFlags(@Nonnull DropRule rule, @Nonnull Material material) {
+        int flags = rule.isDisableItemDrops() ? DROPS_DISABLED : 0;
+        if (rule.isItemAllowlisting()) {
+            flags |= rule.getAllowlist().contains(material) ? ALLOWLISTING | ALLOWLIST_HIT : ALLOWLISTING;
+        }
+        return flags;
+    }
+
+    /**
+     * Format a path as its reason followed by the names of its flags, e.g. {@code blocked [drops-disabled, warned]}.
+     *
+     * @param path The packed path.
+     * @return The readable path.
+     */
+    public static @Nonnull String describe(int path) {
+        int reason = path & REASON_MASK;
+        StringBuilder builder = new StringBuilder(reason < REASONS.length ? REASONS[reason] : "unknown").append(" [");
+        boolean first = true;
+        for (int i = 0; i < FLAGS.length; i++) {
+            if ((path & (1 << (FIRST_FLAG + i))) != 0) {
+                if (!first) {
+                    builder.append(", ");
+                }
+                builder.append(FLAGS[i]);
+                first = false;
+            }
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,156 @@
+package com.altiran.dropstop.trace;
+
+import jakarta.annotation.Nonnull;
+import org.bukkit.Material;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Traces the decisions of drop checks for selected players or a sample of all drops.
+ *
+ * <p>Tracing is off by default and only costs a volatile read per drop then. Traced decisions are
+ * recorded as primitive fields into a preallocated {@link TraceRing}, nothing is logged or allocated
+ * on the tick thread. The ring is formatted and written to a file on request with {@link #dump}.
+ */
+public final class DecisionTracer {
+    private final TraceRing ring;
+    private final Set<UUID> players = ConcurrentHashMap.newKeySet();
+    private volatile int sampleRate;
+    private volatile boolean active;
+
+    /**
+     * Create a new tracer.
+     *
+     * @param capacity The number of decisions to keep.
+     */
+    public DecisionTracer(int capacity) {
+        this.ring = new TraceRing(capacity);
+    }
+
+    /**
+     * Check whether the drop of a player should be traced.
+     *
+     * @param player The unique id of the player.
+     * @return {@code true} if the player is traced or the drop was sampled.
+     */
+    public boolean shouldTrace(@Nonnull UUID player) {
+        if (!active) {
+            return false;
+        }
+
+        int rate = sampleRate;
+        if (rate == 1 || (rate > 1 && ThreadLocalRandom.current().nextInt(rate) == 0)) {
+            return true;
+        }
+        return !players.isEmpty() && players.contains(player);
+    }
+
+    /**
+     * Record a traced decision.
+     *
+     * @param path The packed decision path, see {@link DecisionTrace}.
+     */
+    public void record(@Nonnull UUID player, @Nonnull UUID world, int x, int y, int z, @Nonnull Material material, int amount, int path) {
+        ring.record(System.currentTimeMillis(), player, world, x, y, z, material, amount, path);
+    }
+
+    /**
+     * Trace one in every {@code rate} drops of all players.
+     *
+     * @param rate The sample rate, 1 to trace all drops or 0 to stop sampling.
+     */
+    public void setSampleRate(int rate) {
+        sampleRate = Math.max(0, rate);
+        updateActive();
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Trace all drops of a player, or stop doing so.
+     *
+     * @param player  The unique id of the player.
+     * @param enabled Whether the drops of the player are traced.
+     */
+    public void setTraced(@Nonnull UUID player, boolean enabled) {
+        if (enabled) {
+            players.add(player);
+        } else {
+            players.remove(player);
+        }
+        updateActive();
+    }
+
+    public @Nonnull Set<UUID> getTracedPlayers() {
+        return Set.copyOf(players);
+    }
+
+    /**
+     * Stop tracing all players and sampling.
+     */
+    public void disable() {
+        players.clear();
+        setSampleRate(0);
+    }
+
+    private void updateActive() {
+        active = sampleRate > 0 || !players.isEmpty();
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public @Nonnull TraceRing getRing() {
+        return ring;
+    }
+
+    /**
+     * Format the recorded decisions and write them to a file, one per line from the oldest to the most recent.
+     *
+     * <p>This may block on file I/O, so it must not be called on a tick thread.
+     *
+     * @param file        The file to write, replaced if it exists.
+     * @param playerNames The names of players by unique id, players without a name are written as their id.
+     * @param worldNames  The names of worlds by unique id, worlds without a name are written as their id.
+     * @return The number of decisions written.
+     * @throws IOException If the file cannot be written.
+     */
+    public int dump(@Nonnull Path file, @Nonnull Map<UUID, String> playerNames, @Nonnull Map<UUID, String> worldNames) throws IOException {
+        long[] records = new long[ring.capacity() * TraceRing.FIELDS];
+        int count = ring.snapshot(records);
+        Material[] materials = Material.values();
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                int base = i * TraceRing.FIELDS;
+                UUID player = new UUID(records[base + TraceRing.PLAYER_MOST], records[base + TraceRing.PLAYER_LEAST]);
+                UUID world = new UUID(records[base + TraceRing.WORLD_MOST], records[base + TraceRing.WORLD_LEAST]);
+                long position = records[base + TraceRing.POSITION];
+                long item = records[base + TraceRing.ITEM];
+                int ordinal = (int) (item >>> 32);
+
+                writer.write(Instant.ofEpochMilli(records[base + TraceRing.TIME]) + " " + playerNames.getOrDefault(player, player.toString())
+                        + " dropped " + (int) item + "x " + (ordinal < materials.length ? materials[ordinal].name() : "UNKNOWN")
+                        + " in " + worldNames.getOrDefault(world, world.toString()) + " at " + TraceRing.unpackX(position)
+                        + ", " + TraceRing.unpackY(position) + ", " + TraceRing.unpackZ(position)
+                        + ": " + DecisionTrace.describe((int) records[base + TraceRing.PATH]));
+                writer.newLine();
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,125 @@
+package com.altiran.dropstop.trace;
+
+import jakarta.annotation.Nonnull;
+import org.bukkit.Material;
+
+import java.lang.invoke.VarHandle;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring buffer of traced decisions that keeps the most recent records.
+ *
+ * <p>Each record is a fixed number of {@code long} fields in a single array that is allocated up front,
+ * so recording a decision never allocates. Producers claim a position with a single atomic increment
+ * and overwrite the oldest record. Each slot carries a sequence number that is cleared while the slot
+ * is written, readers copy a record and check the sequence number again to skip records that were
+ * overwritten in the meantime.
+ */
+public final class TraceRing {
+    public static final int TIME = 0;
+    public static final int PLAYER_MOST = 1;
+    public static final int PLAYER_LEAST = 2;
+    public static final int WORLD_MOST = 3;
+    public static final int WORLD_LEAST = 4;
+    public static final int POSITION = 5;
+    public static final int ITEM = 6;
+    public static final int PATH = 7;
+    public static final int FIELDS = 8;
+
+    private final long[] records;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Create a new ring buffer.
+     *
+     * @param capacity The minimum number of records the ring can hold, rounded up to a power of two.
+     */
+    public TraceRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        records = new long[size * FIELDS];
+        sequences = new AtomicLongArray(size);
+        mask = size - 1;
+    }
+
+    /**
+     * Record a decision, never blocks and overwrites the oldest record if the ring is full.
+     */
+    public void record(long timestamp, @Nonnull UUID player, @Nonnull UUID world, int x, int y, int z, @Nonnull Material material, int amount, int path) {
+        long position = tail.getAndIncrement();
+        int index = (int) position & mask;
+        int base = index * FIELDS;
+
+        sequences.set(index, 0);
+        VarHandle.storeStoreFence();
+        records[base + TIME] = timestamp;
+        records[base + PLAYER_MOST] = player.getMostSignificantBits();
+        records[base + PLAYER_LEAST] = player.getLeastSignificantBits();
+        records[base + WORLD_MOST] = world.getMostSignificantBits();
+        records[base + WORLD_LEAST] = world.getLeastSignificantBits();
+        records[base + POSITION] = packPosition(x, y, z);
+        records[base + ITEM] = (long) material.ordinal() << 32 | (amount & 0xFFFFFFFFL);
+        records[base + PATH] = path;
+        sequences.setRelease(index, position + 1);
+    }
+
+    /**
+     * Copy the records in the ring, from the oldest to the most recent.
+     *
+     * <p>Records that are being written or are overwritten while they are copied are skipped.
+     *
+     * @param target The array to copy the fields into, with room for {@link #capacity()} records.
+     * @return The number of records copied.
+     */
+    public int snapshot(@Nonnull long[] target) {
+        long end = tail.get();
+        long start = Math.max(0, end - capacity());
+        int count = 0;
+        for (long position = start; position < end; position++) {
+            int index = (int) position & mask;
+            if (sequences.getAcquire(index) != position + 1) {
+                continue;
+            }
+
+            System.arraycopy(records, index * FIELDS, target, count * FIELDS, FIELDS);
+            VarHandle.loadLoadFence();
+            if (sequences.get(index) == position + 1) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int capacity() {
+        return sequences.length();
+    }
+
+    /**
+     * Get the number of decisions recorded since the ring was created, including overwritten ones.
+     */
+    public long getRecorded() {
+        return tail.get();
+    }
+
+    /**
+     * Pack block coordinates into a single value, 26 bits for x and z and 12 bits for y.
+     */
+    public static long packPosition(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | (y & 0xFFFL);
+    }
+
+    public static int unpackX(long position) {
+        return (int) (position >> 38);
+    }
+
+    public static int unpackY(long position) {
+        return (int) (position << 52 >> 52);
+    }
+
+    public static int unpackZ(long position) {
+        return (int) (position << 26 >> 38);
+    }
+}
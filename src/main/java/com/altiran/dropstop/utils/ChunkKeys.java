@@ -0,0 +1,28 @@
+package com.altiran.dropstop.utils;
+
+/**
+ * Utility class for packing chunk coordinates into a single long.
+ */
+public final class ChunkKeys {
+    /**
+     * Pack the given chunk coordinates into a key.
+     */
+    public static long pack(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Pack the chunk coordinates of the given block coordinates into a key.
+     */
+    public static long ofBlock(int blockX, int blockZ) {
+        return pack(blockX >> 4, blockZ >> 4);
+    }
+
+    public static int chunkX(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int chunkZ(long key) {
+        return (int) key;
+    }
+}
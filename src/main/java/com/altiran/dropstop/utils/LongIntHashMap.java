@@ -0,0 +1,198 @@
+package com.altiran.dropstop.utils;
+
+import jakarta.annotation.Nonnull;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to positive {@code int} counts.
+ *
+ * <p>Neither keys nor values are boxed, so lookups and updates do not allocate unless the map grows.
+ * A key whose count drops to zero or below is removed, so absent keys read as zero. The map is not
+ * thread-safe.
+ */
+public final class LongIntHashMap {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5F;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * Create a new, empty map.
+     */
+    public LongIntHashMap() {
+        keys = new long[DEFAULT_CAPACITY];
+        values = new int[DEFAULT_CAPACITY];
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Get the count of the given key.
+     *
+     * @param key The key to look up.
+     * @return The count, or 0 if the key is not present.
+     */
+    public int get(long key) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        int value;
+        while ((value = values[index]) != 0) {
+            if (keys[index] == key) {
+                return value;
+            }
+            index = (index + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Add the given delta to the count of the given key.
+     *
+     * @param key   The key.
+     * @param delta The amount to add, may be negative.
+     * @return The new count, 0 if the key has been removed.
+     */
+    public int addTo(long key, int delta) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        int value;
+        while ((value = values[index]) != 0) {
+            if (keys[index] == key) {
+                int updated = value + delta;
+                if (updated > 0) {
+                    values[index] = updated;
+                    return updated;
+                }
+                shiftBack(index);
+                size--;
+                return 0;
+            }
+            index = (index + 1) & mask;
+        }
+
+        if (delta > 0) {
+            insert(key, delta);
+            return delta;
+        }
+        return 0;
+    }
+
+    /**
+     * Set the count of the given key.
+     *
+     * @param key   The key.
+     * @param value The count, the key is removed if it is zero or below.
+     */
+    public void put(long key, int value) {
+        int current = get(key);
+        if (value != current) {
+            addTo(key, value - current);
+        }
+    }
+
+    /**
+     * Remove the given key.
+     *
+     * @param key The key to remove.
+     * @return The removed count, or 0 if the key was not present.
+     */
+    public int remove(long key) {
+        int value = get(key);
+        if (value != 0) {
+            addTo(key, -value);
+        }
+        return value;
+    }
+
+    private void insert(long key, int value) {
+        if (size + 1 > keys.length * LOAD_FACTOR) {
+            resize(keys.length << 1);
+        }
+
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (values[index] != 0) {
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+        size++;
+    }
+
+    private void shiftBack(int removed) {
+        int mask = keys.length - 1;
+        int gap = removed;
+        int index = (gap + 1) & mask;
+
+        while (values[index] != 0) {
+            int home = mix(keys[index]) & mask;
+            // Move the entry into the gap if its home slot is not between the gap and its current slot
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+
+        values[gap] = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                int index = mix(oldKeys[i]) & mask;
+                while (values[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Copy the keys of the map into a new array.
+     *
+     * @return The keys, in no particular order.
+     */
+    public @Nonnull long[] keys() {
+        long[] result = new long[size];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != 0) {
+                result[count++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Remove all keys, keeping the current capacity.
+     */
+    public void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
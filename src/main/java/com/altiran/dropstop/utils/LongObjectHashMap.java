@@ -0,0 +1,194 @@
+package com.altiran.dropstop.utils;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map with primitive {@code long} keys.
+ *
+ * <p>Keys are never boxed, so lookups do not allocate. The map is not thread-safe.
+ *
+ * @param <V> The type of the values.
+ */
+public final class LongObjectHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5F;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    /**
+     * Create a new, empty map.
+     */
+    public LongObjectHashMap() {
+        keys = new long[DEFAULT_CAPACITY];
+        values = new Object[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Create a copy of the given map. The values themselves are not copied.
+     *
+     * @param other The map to copy.
+     */
+    public LongObjectHashMap(@Nonnull LongObjectHashMap<V> other) {
+        keys = Arrays.copyOf(other.keys, other.keys.length);
+        values = Arrays.copyOf(other.values, other.values.length);
+        size = other.size;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Get the value of the given key.
+     *
+     * @param key The key to look up.
+     * @return The value, or {@code null} if the key is not present.
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V get(long key) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        Object value;
+        while ((value = values[index]) != null) {
+            if (keys[index] == key) {
+                return (V) value;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Associate the given value with the given key.
+     *
+     * @param key   The key.
+     * @param value The value, must not be {@code null}.
+     * @return The previous value, or {@code null} if the key was not present.
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V put(long key, @Nonnull V value) {
+        if (size + 1 > keys.length * LOAD_FACTOR) {
+            resize(keys.length << 1);
+        }
+
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        Object existing;
+        while ((existing = values[index]) != null) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return (V) existing;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * Remove the given key.
+     *
+     * @param key The key to remove.
+     * @return The removed value, or {@code null} if the key was not present.
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V remove(long key) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        Object existing;
+        while ((existing = values[index]) != null) {
+            if (keys[index] == key) {
+                shiftBack(index);
+                size--;
+                return (V) existing;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    private void shiftBack(int removed) {
+        int mask = keys.length - 1;
+        int gap = removed;
+        int index = (gap + 1) & mask;
+
+        while (values[index] != null) {
+            int home = mix(keys[index]) & mask;
+            // Move the entry into the gap if its home slot is not between the gap and its current slot
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+
+        values[gap] = null;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int index = mix(oldKeys[i]) & mask;
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Invoke the given action for every entry of the map.
+     *
+     * @param action The action to invoke.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(@Nonnull Consumer<V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Action invoked for an entry of the map.
+     *
+     * @param <V> The type of the values.
+     */
+    @FunctionalInterface
+    public interface Consumer<V> {
+        /**
+         * Accept a single entry.
+         *
+         * @param key   The key of the entry.
+         * @param value The value of the entry.
+         */
+        void accept(long key, @Nonnull V value);
+    }
+}
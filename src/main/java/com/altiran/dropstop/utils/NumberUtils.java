@@ -10,12 +10,26 @@ import java.util.Locale;
  * Utility class for number operations.
  */
 public final class NumberUtils {
-    private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("#.##", DecimalFormatSymbols.getInstance(Locale.ROOT));
+    // DecimalFormat is not thread-safe, and numbers are formatted on the main thread and on asynchronous tasks
+    private static final ThreadLocal<DecimalFormat> DECIMAL_FORMAT = ThreadLocal.withInitial(() -> new DecimalFormat("#.##", DecimalFormatSymbols.getInstance(Locale.ROOT)));
 
     /**
      * Round a decimal number to two decimal places.
      */
     public static @Nonnull String roundDecimalNumber(double number) {
-        return DECIMAL_FORMAT.format(number);
+        return DECIMAL_FORMAT.get().format(number);
+    }
+
+    /**
+     * Format a duration in nanoseconds with the most readable unit.
+     */
+    public static @Nonnull String formatNanos(double nanos) {
+        if (nanos >= 1000000) {
+            return roundDecimalNumber(nanos / 1000000.0) + "ms";
+        } else if (nanos >= 1000) {
+            return roundDecimalNumber(nanos / 1000.0) + "us";
+        } else {
+            return roundDecimalNumber(nanos) + "ns";
+        }
     }
 }
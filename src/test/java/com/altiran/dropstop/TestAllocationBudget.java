@@ -0,0 +1,159 @@
+package com.altiran.dropstop;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import com.altiran.dropstop.listeners.PlayerDropListener;
+import org.bukkit.Material;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation budget tests for the drop handler.
+ *
+ * <p>Each test drives one path of the drop handler many thousands of times with the same event and
+ * measures the bytes allocated by the test thread with {@link com.sun.management.ThreadMXBean}. A test
+ * fails when the average number of bytes per event goes over the budget of its path. The handler is
+ * warmed up first, so one-time allocations such as the first counters of a world or material and code
+ * that runs before the JIT compiler has removed its short-lived objects are not counted. The average is
+ * rounded down, so a few stray allocations during the measurement don't fail a zero budget.
+ */
+public class TestAllocationBudget {
+    private static final int WARMUP_EVENTS = 50000;
+    private static final int MEASURED_EVENTS = 100000;
+
+    // Bytes per event
+    private static final long ALLOWED_BUDGET = 0;
+    private static final long BLOCKED_BUDGET = 0;
+    private static final long WARNING_COOLDOWN_BUDGET = 0;
+    private static final long WARNING_SENT_BUDGET = 512; // The rendered message and the cooldown entry
+    private static final long TRACED_BUDGET = 0;
+
+    private static com.sun.management.ThreadMXBean threads;
+    private ServerMock server;
+    private DropStop plugin;
+    private PlayerMock player;
+    private PlayerDropListener listener;
+
+    /**
+     * Enable the allocation counters of the JVM, if it supports them.
+     */
+    @BeforeAll
+    public static void enableAllocationCounters() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean, "The JVM does not count allocated bytes per thread.");
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "The JVM does not count allocated bytes per thread.");
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /**
+     * Start the server and create the listener the events are passed to.
+     */
+    @BeforeEach
+    public void prepare() {
+        server = MockBukkit.mock();
+        plugin = MockBukkit.load(DropStop.class);
+        player = server.addPlayer();
+        listener = new PlayerDropListener(plugin);
+
+        plugin.getConfig().set("disable-item-drops", true);
+        plugin.getConfig().set("warn-player-on-drop", false);
+        plugin.getConfig().set("item-allowlisting", true);
+        plugin.getConfig().set("item-allowlist", List.of("DIAMOND"));
+        plugin.getConfig().set("warning-message", "&6&lHey %player%, you are not allowed to drop that here.");
+        plugin.getConfig().set("warning-timeout", 3600);
+    }
+
+    /**
+     * Stop the server after each test.
+     */
+    @AfterEach
+    public void dispose() {
+        server.getScheduler().cancelTasks(plugin);
+        MockBukkit.unmock();
+    }
+
+    @Test
+    @DisplayName("Verify that an allowed drop does not allocate")
+    void testAllowedDrop() {
+        plugin.reloadPolicy();
+        assertBudget(ALLOWED_BUDGET, createEvent(Material.DIAMOND), false, null);
+    }
+
+    @Test
+    @DisplayName("Verify that a blocked drop without a warning does not allocate")
+    void testBlockedDrop() {
+        plugin.reloadPolicy();
+        assertBudget(BLOCKED_BUDGET, createEvent(Material.DIRT), true, null);
+    }
+
+    @Test
+    @DisplayName("Verify that a blocked drop does not allocate while the warning is on cooldown")
+    void testWarningOnCooldown() {
+        plugin.getConfig().set("warn-player-on-drop", true);
+        plugin.reloadPolicy();
+        assertBudget(WARNING_COOLDOWN_BUDGET, createEvent(Material.DIRT), true, null);
+    }
+
+    @Test
+    @DisplayName("Verify that a blocked drop that sends a warning stays within its budget")
+    void testWarningSent() {
+        plugin.getConfig().set("warn-player-on-drop", true);
+        plugin.reloadPolicy();
+        assertBudget(WARNING_SENT_BUDGET, createEvent(Material.DIRT), true, () -> plugin.resetPlayerMessageTimestamps());
+    }
+
+    @Test
+    @DisplayName("Verify that tracing a drop does not allocate")
+    void testTracedDrop() {
+        plugin.reloadPolicy();
+        plugin.getTracer().setSampleRate(1);
+        assertBudget(TRACED_BUDGET, createEvent(Material.DIRT), true, null);
+        assertEquals(WARMUP_EVENTS + MEASURED_EVENTS, plugin.getTracer().getRing().getRecorded());
+        plugin.getTracer().disable();
+    }
+
+    private PlayerDropItemEvent createEvent(Material material) {
+        return new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), new ItemStack(material)));
+    }
+
+    /**
+     * Pass the event to the listener until it is warmed up, then fail if the measured events allocate more than the budget.
+     *
+     * @param budget    The maximum number of bytes per event.
+     * @param event     The event to pass to the listener.
+     * @param cancelled Whether the listener is expected to cancel the event.
+     * @param before    The action to run before each event, or {@code null}. Its allocations are counted too.
+     */
+    private void assertBudget(long budget, PlayerDropItemEvent event, boolean cancelled, Runnable before) {
+        long thread = Thread.currentThread().threadId();
+        for (int i = 0; i < WARMUP_EVENTS; i++) {
+            drop(event, before);
+        }
+        assertEquals(cancelled, event.isCancelled());
+
+        long start = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < MEASURED_EVENTS; i++) {
+            drop(event, before);
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - start;
+
+        long perEvent = allocated / MEASURED_EVENTS;
+        assertTrue(perEvent <= budget, "Allocated " + perEvent + " bytes per event, the budget is " + budget + " bytes (" + allocated + " bytes in total).");
+    }
+
+    private void drop(PlayerDropItemEvent event, Runnable before) {
+        if (before != null) {
+            before.run();
+        }
+        event.setCancelled(false);
+        listener.onPlayerItemDrop(event);
+    }
+}
@@ -0,0 +1,168 @@
+package com.altiran.dropstop;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import com.altiran.dropstop.message.WarningTemplate;
+import com.altiran.dropstop.policy.DropPolicy;
+import org.bukkit.Material;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Full matrix test for DropStop, replacing the former full test of {@link TestPlugin}.
+ *
+ * <p>Every droppable material is checked against every combination of the drop settings, each
+ * combined with a number of allowlists and warning messages generated from a seed. A case is fully
+ * determined by the seed and its index, so a failing case can be reproduced by running the matrix
+ * again with the same seed.
+ *
+ * <p>The cases compile and evaluate a {@link DropPolicy} directly instead of firing events, because
+ * the MockBukkit server is a JVM-wide singleton and can't be shared by parallel workers. The server
+ * is only started to back the Bukkit API and is never modified by the cases, so they run concurrently
+ * on all cores. The matrix can be split into shards to spread it over several machines.
+ *
+ * <p>These tests don't run with the regular tests. Run them with {@code ./gradlew fullMatrixTest},
+ * optionally with {@code -PshardIndex}, {@code -PshardCount}, {@code -PmatrixSeed} and
+ * {@code -PmatrixAllowlists} to set the number of allowlists per combination of settings.
+ */
+@Tag("full-matrix")
+@Execution(ExecutionMode.CONCURRENT)
+public class TestFullMatrix {
+    private static final int SHARD_INDEX = Integer.getInteger("dropstop.matrix.shardIndex", 0);
+    private static final int SHARD_COUNT = Math.max(1, Integer.getInteger("dropstop.matrix.shardCount", 1));
+    private static final long SEED = Long.getLong("dropstop.matrix.seed", 0L);
+    private static final int ALLOWLISTS = Math.max(2, Integer.getInteger("dropstop.matrix.allowlists", 1024));
+    private static final int SETTING_COMBINATIONS = 8; // disable-item-drops x item-allowlisting x warn-player-on-drop
+    private static final String CHARACTERS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz!@#$%^*()-_=+[{]};:'\",<.>/?`~ ";
+    private static final String MC_CHAR = String.valueOf((char) 167);
+    private static final Logger POLICY_LOGGER = Logger.getLogger("DropStop-FullMatrix");
+
+    private static List<Material> droppableMaterials;
+
+    /**
+     * Start the server backing the Bukkit API and collect the materials to test.
+     */
+    @BeforeAll
+    public static void load() {
+        MockBukkit.mock();
+        droppableMaterials = Arrays.stream(Material.values())
+            .filter(material -> material.isItem() && material != Material.AIR && material != Material.LEGACY_AIR)
+            .toList();
+
+        LoggerFactory.getLogger("Tests").info("Running shard {} of {} of the full matrix with seed {} and {} allowlists per combination.", SHARD_INDEX + 1, SHARD_COUNT, SEED, ALLOWLISTS);
+    }
+
+    /**
+     * Stop the server after all cases have run.
+     */
+    @AfterAll
+    public static void unload() {
+        MockBukkit.unmock();
+    }
+
+    /**
+     * Get the indices of the cases that belong to the current shard.
+     */
+    static IntStream cases() {
+        return IntStream.range(0, SETTING_COMBINATIONS * ALLOWLISTS).filter(index -> index % SHARD_COUNT == SHARD_INDEX);
+    }
+
+    @ParameterizedTest(name = "case {0}")
+    @MethodSource("cases")
+    @DisplayName("Verify the drop decision and warning message of every material for a seeded configuration")
+    void testCase(int index) {
+        Random random = new Random(SEED * 31 + index);
+        boolean disableItemDrops = (index & 1) != 0;
+        boolean itemAllowlisting = (index & 2) != 0;
+        boolean warnPlayerOnDrop = (index & 4) != 0;
+        int allowlistCase = index / SETTING_COMBINATIONS;
+
+        Set<Material> allowlist = EnumSet.noneOf(Material.class);
+        if (allowlistCase == 0) {
+            allowlist.addAll(droppableMaterials);
+        } else if (allowlistCase > 1) {
+            double density = random.nextDouble();
+            for (Material material : droppableMaterials) {
+                if (random.nextDouble() < density) {
+                    allowlist.add(material);
+                }
+            }
+        }
+
+        List<String> names = new ArrayList<>(allowlist.size());
+        for (Material material : allowlist) {
+            // Material names are case-insensitive in the configuration
+            names.add(random.nextBoolean() ? material.name() : material.name().toLowerCase(Locale.ROOT));
+        }
+
+        String message = randomMessage(random);
+        int timeout = random.nextInt(121);
+
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("disable-item-drops", disableItemDrops);
+        config.set("item-allowlisting", itemAllowlisting);
+        config.set("item-allowlist", names);
+        config.set("warn-player-on-drop", warnPlayerOnDrop);
+        config.set("warning-message", message);
+        config.set("warning-timeout", timeout);
+
+        DropPolicy policy = DropPolicy.compile(config, POLICY_LOGGER);
+        assertEquals(allowlist, policy.getAllowlist(), "case " + index);
+        assertEquals(timeout * 1000000000L, policy.getWarningTimeoutNanos(), "case " + index);
+
+        for (Material material : droppableMaterials) {
+            boolean expected = disableItemDrops && !(itemAllowlisting && allowlist.contains(material));
+            assertEquals(expected, policy.blocks(material), () -> "case " + index + ", material " + material.name());
+        }
+
+        WarningTemplate template = policy.getWarningTemplate();
+        if (warnPlayerOnDrop) {
+            assertNotNull(template, "case " + index);
+            String playerName = randomString(random, 3 + random.nextInt(14));
+            assertEquals(message.replace("&", MC_CHAR).replace("%player%", playerName), template.render(playerName), "case " + index);
+        } else {
+            assertNull(template, "case " + index);
+        }
+    }
+
+    private static String randomMessage(Random random) {
+        StringBuilder builder = new StringBuilder();
+        int parts = 1 + random.nextInt(4);
+        for (int i = 0; i < parts; i++) {
+            if (i > 0 || random.nextBoolean()) {
+                builder.append("%player%");
+            }
+            if (random.nextBoolean()) {
+                builder.append('&').append("0123456789abcdefklmnor".charAt(random.nextInt(22)));
+            }
+            builder.append(randomString(random, random.nextInt(24)));
+        }
+
+        // An empty message is rejected when warnings are enabled
+        return builder.isEmpty() ? "x" : builder.toString();
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+        }
+        return builder.toString();
+    }
+}
@@ -4,20 +4,67 @@ import be.seeseemelk.mockbukkit.MockBukkit;
 import be.seeseemelk.mockbukkit.ServerMock;
 import be.seeseemelk.mockbukkit.WorldMock;
 import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import com.altiran.dropstop.api.DropDecision;
+import com.altiran.dropstop.api.DropStopApi;
+import com.altiran.dropstop.audit.AuditLog;
+import com.altiran.dropstop.audit.AuditRecord;
+import com.altiran.dropstop.audit.AuditRing;
+import com.altiran.dropstop.chunk.ChunkItemCounter;
+import com.altiran.dropstop.lag.LagMonitor;
+import com.altiran.dropstop.message.LocalizedWarnings;
+import com.altiran.dropstop.message.WarningDisplay;
+import com.altiran.dropstop.message.WarningTemplate;
+import com.altiran.dropstop.network.PolicyTree;
+import com.altiran.dropstop.network.PolicyTransport;
+import com.altiran.dropstop.network.PolicySync;
+import com.altiran.dropstop.network.PolicyCodec;
+import com.altiran.dropstop.network.NetworkRole;
+import com.altiran.dropstop.player.PlayerStats;
+import com.altiran.dropstop.player.PlayerStatsStore;
+import com.altiran.dropstop.player.RateLimiter;
+import com.altiran.dropstop.policy.ItemMatcher;
+import com.altiran.dropstop.policy.WorldPolicy;
+import com.altiran.dropstop.trace.DecisionTrace;
+import com.altiran.dropstop.trace.DecisionTracer;
+import com.altiran.dropstop.trace.TraceRing;
+import com.altiran.dropstop.utils.ChunkKeys;
 import com.altiran.dropstop.utils.ProcessUtils;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Item;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.ItemDespawnEvent;
+import org.bukkit.event.entity.ItemMergeEvent;
+import org.bukkit.event.entity.ItemSpawnEvent;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerLocaleChangeEvent;
+import org.bukkit.inventory.InventoryView;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.plugin.Plugin;
 import org.junit.jupiter.api.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
@@ -27,26 +74,6 @@ import static org.junit.jupiter.api.Assertions.*;
  * Test class for DropStop.
  */
 public class TestPlugin {
-    /**
-     * WHETHER TO RUN A FULL TEST OR A PARTIAL TEST
-     *
-     * <p>Full tests check can test the plugin very thoroughly, which is not required most of the time.
-     * Running a full test can be extremely slow, taking several days to complete.
-     *
-     * <p>We, at Altiran, run one of these periodically to ensure the functionality of the plugin.
-     * But we never run full tests in a CI environment (e.g., GitHub Actions). Running a full test
-     * requires a lot of processing power (we have seen up to 100% CPU usage while a full test was
-     * in progress) and can slow down or even damage your computer significantly. The allocated
-     * memory for the JVM should be increased to at least 16 GB to run a full test. We recommend
-     * running a full test only on a powerful computer with a lot of memory. Only change this
-     * value if you are sure about what you are doing.
-     *
-     * <p>Normally this is set to false, meaning that only a partial test will be run. A partial test
-     * will test the plugin with only the most common cases and will complete in a reasonable amount
-     * of time. Hence, it is safe to run a partial test in most environments.
-     */
-    private static final boolean FULL_TEST = false;
-
     private static final Logger LOGGER = LoggerFactory.getLogger("Tests");
     private static final StringBuilder CHARACTERS = new StringBuilder();
     private static final SecureRandom RANDOM = new SecureRandom();
@@ -136,6 +163,7 @@ public class TestPlugin {
         }
 
         plugin.getConfig().set("item-allowlist", allowlist);
+        plugin.reloadPolicy();
 
         for (Material material : DROPPABLE_MATERIALS) {
             ItemStack item = new ItemStack(material);
@@ -171,6 +199,7 @@ public class TestPlugin {
         String message = getWarningMessageText();
         plugin.getConfig().set("warning-message", message);
         plugin.getConfig().set("warning-timeout", timeout);
+        plugin.reloadPolicy();
 
         ItemStack item = new ItemStack(DROPPABLE_MATERIALS.get(RANDOM.nextInt(DROPPABLE_MATERIALS.size())));
         player.getInventory().setItemInMainHand(item);
@@ -179,12 +208,14 @@ public class TestPlugin {
         PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), item));
         server.getPluginManager().callEvent(event);
         assertTrue(event.isCancelled());
+        server.getScheduler().performOneTick(); // Warnings are delivered on the next tick
         assertEquals(message, player.nextMessage());
 
         // Drop an item within the timeout period
         event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), item));
         server.getPluginManager().callEvent(event);
         assertTrue(event.isCancelled());
+        server.getScheduler().performOneTick();
         String nextMessage = player.nextMessage();
 
         if (nextMessage != null) {
@@ -200,6 +231,7 @@ public class TestPlugin {
         event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), item));
         server.getPluginManager().callEvent(event);
         assertTrue(event.isCancelled());
+        server.getScheduler().performOneTick();
         assertEquals(message, player.nextMessage()); // A new message should be sent
     }
 
@@ -226,6 +258,7 @@ public class TestPlugin {
     @DisplayName("Verify that items cannot be dropped when configured true")
     void testItemDropPrevention() {
         plugin.getConfig().set("disable-item-drops", true);
+        plugin.reloadPolicy();
         for (Material material : DROPPABLE_MATERIALS) {
             ItemStack item = new ItemStack(material);
             player.getInventory().setItemInMainHand(item);
@@ -241,6 +274,7 @@ public class TestPlugin {
     @DisplayName("Verify that items can be dropped when configured false")
     void testItemDropAllowed() {
         plugin.getConfig().set("disable-item-drops", false);
+        plugin.reloadPolicy();
         for (Material material : DROPPABLE_MATERIALS) {
             ItemStack item = new ItemStack(material);
             player.getInventory().setItemInMainHand(item);
@@ -256,6 +290,7 @@ public class TestPlugin {
     @DisplayName("Verify that items can be dropped when configuration is not set")
     void testNoConfiguration() {
         plugin.getConfig().set("disable-item-drops", null); // Set to null
+        plugin.reloadPolicy();
 
         for (Material material : DROPPABLE_MATERIALS) {
             ItemStack item = new ItemStack(material);
@@ -273,10 +308,12 @@ public class TestPlugin {
     void testWarningMessage() {
         plugin.getConfig().set("disable-item-drops", true);
         plugin.getConfig().set("warn-player-on-drop", true);
+        plugin.reloadPolicy();
 
         for (Material material : DROPPABLE_MATERIALS) {
             String message = getWarningMessageText();
             plugin.getConfig().set("warning-message", message);
+            plugin.reloadPolicy();
 
             ItemStack item = new ItemStack(material);
             player.getInventory().setItemInMainHand(item);
@@ -285,6 +322,7 @@ public class TestPlugin {
             server.getPluginManager().callEvent(event);
 
             assertTrue(event.isCancelled());
+            server.getScheduler().performOneTick();
             assertEquals(message, player.nextMessage());
 
             plugin.resetPlayerMessageTimestamps();
@@ -296,41 +334,34 @@ public class TestPlugin {
     void testItemAllowlisting() {
         plugin.getConfig().set("disable-item-drops", true);
         plugin.getConfig().set("item-allowlisting", true);
+        plugin.reloadPolicy();
 
-        if (FULL_TEST) {
-            // Full testing: consider all combinations of items
-            int n = DROPPABLE_MATERIALS.size();
-            for (int bitmask = 0; bitmask < (1 << n); bitmask++) {
-                testGivenCombination(bitmask, n, true);
-            }
-        } else {
-            // Partial testing: consider only the most common cases
+        // The exhaustive combinations are covered by TestFullMatrix, only check the most common cases here
 
-            // Case 1: Allowlist has all items
-            testGivenCombination((1 << DROPPABLE_MATERIALS.size()) - 1, DROPPABLE_MATERIALS.size(), true);
+        // Case 1: Allowlist has all items
+        testGivenCombination((1 << DROPPABLE_MATERIALS.size()) - 1, DROPPABLE_MATERIALS.size(), true);
 
-            // Case 2: Allowlist has no items
-            testGivenCombination(0, DROPPABLE_MATERIALS.size(), true);
+        // Case 2: Allowlist has no items
+        testGivenCombination(0, DROPPABLE_MATERIALS.size(), true);
 
-            // Case 3: Allowlist has a random half of the items
-            List<Material> shuffledMaterials = new ArrayList<>(DROPPABLE_MATERIALS);
-            Collections.shuffle(shuffledMaterials);
-            int bitmask = 0;
-            for (int i = 0; i < shuffledMaterials.size() / 2; i++) {
-                bitmask |= 1 << DROPPABLE_MATERIALS.indexOf(shuffledMaterials.get(i));
-            }
-            testGivenCombination(bitmask, DROPPABLE_MATERIALS.size(), true);
+        // Case 3: Allowlist has a random half of the items
+        List<Material> shuffledMaterials = new ArrayList<>(DROPPABLE_MATERIALS);
+        Collections.shuffle(shuffledMaterials);
+        int bitmask = 0;
+        for (int i = 0; i < shuffledMaterials.size() / 2; i++) {
+            bitmask |= 1 << DROPPABLE_MATERIALS.indexOf(shuffledMaterials.get(i));
+        }
+        testGivenCombination(bitmask, DROPPABLE_MATERIALS.size(), true);
 
-            // Case 4: Allowlist has a random single item
-            testGivenCombination(1 << RANDOM.nextInt(DROPPABLE_MATERIALS.size()), DROPPABLE_MATERIALS.size(), true);
+        // Case 4: Allowlist has a random single item
+        testGivenCombination(1 << RANDOM.nextInt(DROPPABLE_MATERIALS.size()), DROPPABLE_MATERIALS.size(), true);
 
-            // Case 5: Allowlist has multiple random items
-            bitmask = 0;
-            for (int i = 0; i < RANDOM.nextInt(DROPPABLE_MATERIALS.size()); i++) {
-                bitmask |= 1 << RANDOM.nextInt(DROPPABLE_MATERIALS.size());
-            }
-            testGivenCombination(bitmask, DROPPABLE_MATERIALS.size(), true);
+        // Case 5: Allowlist has multiple random items
+        bitmask = 0;
+        for (int i = 0; i < RANDOM.nextInt(DROPPABLE_MATERIALS.size()); i++) {
+            bitmask |= 1 << RANDOM.nextInt(DROPPABLE_MATERIALS.size());
         }
+        testGivenCombination(bitmask, DROPPABLE_MATERIALS.size(), true);
     }
 
     @Test
@@ -338,47 +369,844 @@ public class TestPlugin {
     void testItemNotAllowlisted() {
         plugin.getConfig().set("disable-item-drops", true);
         plugin.getConfig().set("item-allowlisting", true);
+        plugin.reloadPolicy();
 
-        if (FULL_TEST) {
-            // Full testing: consider all combinations of items
-            int n = DROPPABLE_MATERIALS.size();
-            for (int bitmask = 0; bitmask < (1 << n); bitmask++) {
-                testGivenCombination(bitmask, n, false);
-            }
-        } else {
-            // Partial testing: consider only the most common cases
+        // The exhaustive combinations are covered by TestFullMatrix, only check the most common cases here
 
-            // Case 1: Allowlist has all items
-            testGivenCombination((1 << DROPPABLE_MATERIALS.size()) - 1, DROPPABLE_MATERIALS.size(), false);
+        // Case 1: Allowlist has all items
+        testGivenCombination((1 << DROPPABLE_MATERIALS.size()) - 1, DROPPABLE_MATERIALS.size(), false);
 
-            // Case 2: Allowlist has no items
-            testGivenCombination(0, DROPPABLE_MATERIALS.size(), false);
+        // Case 2: Allowlist has no items
+        testGivenCombination(0, DROPPABLE_MATERIALS.size(), false);
 
-            // Case 3: Allowlist has a random half of the items
-            List<Material> shuffledMaterials = new ArrayList<>(DROPPABLE_MATERIALS);
-            Collections.shuffle(shuffledMaterials);
-            int bitmask = 0;
-            for (int i = 0; i < shuffledMaterials.size() / 2; i++) {
-                bitmask |= 1 << DROPPABLE_MATERIALS.indexOf(shuffledMaterials.get(i));
-            }
-            testGivenCombination(bitmask, DROPPABLE_MATERIALS.size(), false);
+        // Case 3: Allowlist has a random half of the items
+        List<Material> shuffledMaterials = new ArrayList<>(DROPPABLE_MATERIALS);
+        Collections.shuffle(shuffledMaterials);
+        int bitmask = 0;
+        for (int i = 0; i < shuffledMaterials.size() / 2; i++) {
+            bitmask |= 1 << DROPPABLE_MATERIALS.indexOf(shuffledMaterials.get(i));
+        }
+        testGivenCombination(bitmask, DROPPABLE_MATERIALS.size(), false);
+
+        // Case 4: Allowlist has a random single item
+        testGivenCombination(1 << RANDOM.nextInt(DROPPABLE_MATERIALS.size()), DROPPABLE_MATERIALS.size(), false);
+
+        // Case 5: Allowlist has multiple random items
+        bitmask = 0;
+        for (int i = 0; i < RANDOM.nextInt(DROPPABLE_MATERIALS.size()); i++) {
+            bitmask |= 1 << RANDOM.nextInt(DROPPABLE_MATERIALS.size());
+        }
+        testGivenCombination(bitmask, DROPPABLE_MATERIALS.size(), false);
+    }
+
+    @Test
+    @DisplayName("Verify that item tags in the allowlist are expanded into their materials")
+    void testItemAllowlistTags() {
+        plugin.getConfig().set("disable-item-drops", true);
+        plugin.getConfig().set("item-allowlisting", true);
+        plugin.getConfig().set("item-allowlist", List.of("#logs", "diamond"));
+        plugin.reloadPolicy();
+
+        assertFalse(plugin.getPolicy().blocks(Material.OAK_LOG));
+        assertFalse(plugin.getPolicy().blocks(Material.SPRUCE_LOG));
+        assertFalse(plugin.getPolicy().blocks(Material.DIAMOND));
+        assertTrue(plugin.getPolicy().blocks(Material.DIRT));
+    }
+
+    @Test
+    @DisplayName("Verify that the configuration file is reloaded asynchronously and invalid files are rejected")
+    void testAsyncReload() throws IOException {
+        File file = new File(plugin.getDataFolder(), "config.yml");
+
+        Files.writeString(file.toPath(), "disable-item-drops: false\n");
+        plugin.reloadPolicyAsync(null);
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+        assertFalse(plugin.getPolicy().isDisableItemDrops());
+
+        Files.writeString(file.toPath(), "disable-item-drops: [\n");
+        plugin.reloadPolicyAsync(null);
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+        assertFalse(plugin.getPolicy().isDisableItemDrops()); // The previous policy should be kept
+
+        Files.writeString(file.toPath(), "disable-item-drops: true\n");
+        plugin.reloadPolicyAsync(null);
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+        assertTrue(plugin.getPolicy().isDisableItemDrops());
+    }
 
-            // Case 4: Allowlist has a random single item
-            testGivenCombination(1 << RANDOM.nextInt(DROPPABLE_MATERIALS.size()), DROPPABLE_MATERIALS.size(), false);
+    @Test
+    @DisplayName("Verify that warning cooldowns are evicted when players quit or expire")
+    void testWarningCooldownEviction() {
+        plugin.getConfig().set("disable-item-drops", true);
+        plugin.getConfig().set("warn-player-on-drop", true);
+        plugin.reloadPolicy();
+
+        ItemStack item = new ItemStack(Material.DIRT);
+        PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), item));
+        server.getPluginManager().callEvent(event);
+        assertEquals(1, plugin.getCooldowns().size());
+
+        player.disconnect();
+        assertEquals(0, plugin.getCooldowns().size());
+
+        plugin.getCooldowns().tryAcquire(player.getUniqueId(), 0, 1000);
+        assertEquals(0, plugin.getCooldowns().purgeExpired(999, 1000));
+        assertEquals(1, plugin.getCooldowns().purgeExpired(1000, 1000));
+        assertEquals(0, plugin.getCooldowns().size());
+    }
+
+    @Test
+    @DisplayName("Verify that warning templates translate colour codes and fill in the player name")
+    void testWarningTemplate() {
+        WarningTemplate template = WarningTemplate.compile("&6&lHey %player%, %player%!");
+        String mc = String.valueOf((char) 167);
+
+        assertEquals(mc + "6" + mc + "lHey Steve, Steve!", template.render("Steve"));
+        assertEquals("plain", WarningTemplate.compile("plain").render("Steve"));
+        assertEquals("Alex", WarningTemplate.compile("%player%").render("Alex"));
+    }
+
+    @Test
+    @DisplayName("Verify that warnings of a tick are merged and delivered once on the next tick")
+    void testWarningCoalescing() {
+        String message = getWarningMessageText();
+        plugin.getConfig().set("disable-item-drops", true);
+        plugin.getConfig().set("warn-player-on-drop", true);
+        plugin.getConfig().set("warning-message", message);
+        plugin.getConfig().set("warning-timeout", 0);
+        plugin.reloadPolicy();
+
+        ItemStack item = new ItemStack(Material.DIRT);
+        for (int i = 0; i < 10; i++) {
+            PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), item));
+            server.getPluginManager().callEvent(event);
+            assertTrue(event.isCancelled());
+        }
+
+        assertNull(player.nextMessage()); // Nothing is sent before the next tick
+        server.getScheduler().performOneTick();
+        assertEquals(message, player.nextMessage());
+        assertNull(player.nextMessage()); // Identical warnings are merged
+
+        plugin.getConfig().set("warning-display", "action-bar");
+        plugin.reloadPolicy();
+        assertEquals(WarningDisplay.ACTION_BAR, plugin.getPolicy().getWarningDisplay());
+
+        PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), item));
+        server.getPluginManager().callEvent(event);
+        server.getScheduler().performOneTick();
+        assertNull(player.nextMessage()); // Sent to the action bar instead of the chat
+    }
 
-            // Case 5: Allowlist has multiple random items
-            bitmask = 0;
-            for (int i = 0; i < RANDOM.nextInt(DROPPABLE_MATERIALS.size()); i++) {
-                bitmask |= 1 << RANDOM.nextInt(DROPPABLE_MATERIALS.size());
+    @Test
+    @DisplayName("Verify that warnings are sent in the client language of the player with fallbacks")
+    void testLocalizedWarnings() {
+        plugin.getConfig().set("disable-item-drops", true);
+        plugin.getConfig().set("warn-player-on-drop", true);
+        plugin.getConfig().set("warning-message", "Default");
+        plugin.getConfig().set("warning-timeout", 0);
+        plugin.getConfig().set("warning-messages.pt", "Portugues");
+        plugin.getConfig().set("warning-messages.pt-BR", "Brasileiro");
+        plugin.getConfig().set("warning-messages.de", "Deutsch");
+        plugin.reloadPolicy();
+
+        LocalizedWarnings warnings = plugin.getPolicy().getWarnings();
+        assertNotNull(warnings);
+        assertEquals(3, warnings.size());
+        assertEquals("Brasileiro", warnings.resolve("pt_BR").render("Steve"));
+        assertEquals("Portugues", warnings.resolve("pt_PT").render("Steve"));
+        assertEquals("Deutsch", warnings.resolve("de_DE").render("Steve"));
+        assertEquals("Default", warnings.resolve("en_US").render("Steve"));
+
+        server.getPluginManager().callEvent(new PlayerLocaleChangeEvent(player, "pt_br"));
+        assertEquals(1, plugin.getLocaleCache().size());
+
+        ItemStack item = new ItemStack(Material.DIRT);
+        PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), item));
+        server.getPluginManager().callEvent(event);
+        server.getScheduler().performOneTick();
+        assertEquals("Brasileiro", player.nextMessage());
+
+        server.getPluginManager().callEvent(new PlayerLocaleChangeEvent(player, "de_at"));
+        event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), item));
+        server.getPluginManager().callEvent(event);
+        server.getScheduler().performOneTick();
+        assertEquals("Deutsch", player.nextMessage());
+
+        player.disconnect();
+        assertEquals(0, plugin.getLocaleCache().size());
+    }
+
+    @Test
+    @DisplayName("Verify that traced decisions record their path into the ring and can be dumped")
+    void testDecisionTrace() throws IOException {
+        TraceRing ring = new TraceRing(2);
+        for (int i = 1; i <= 3; i++) {
+            ring.record(i, player.getUniqueId(), player.getWorld().getUID(), -30000000 + i, -64, 29999999, Material.DIRT, i, DecisionTrace.BLOCKED);
+        }
+        long[] records = new long[ring.capacity() * TraceRing.FIELDS];
+        assertEquals(2, ring.snapshot(records)); // The oldest record was overwritten
+        assertEquals(2, records[TraceRing.TIME]);
+        assertEquals(-29999998, TraceRing.unpackX(records[TraceRing.POSITION]));
+        assertEquals(-64, TraceRing.unpackY(records[TraceRing.POSITION]));
+        assertEquals(29999999, TraceRing.unpackZ(records[TraceRing.POSITION]));
+
+        plugin.getConfig().set("disable-item-drops", true);
+        plugin.getConfig().set("warn-player-on-drop", true);
+        plugin.getConfig().set("warning-timeout", 5);
+        plugin.getConfig().set("item-allowlisting", true);
+        plugin.getConfig().set("item-allowlist", List.of("DIAMOND"));
+        plugin.reloadPolicy();
+
+        DecisionTracer tracer = plugin.getTracer();
+        ItemStack item = new ItemStack(Material.DIRT);
+        server.getPluginManager().callEvent(new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), item)));
+        assertFalse(tracer.isActive());
+        assertEquals(0, tracer.getRing().getRecorded()); // Nothing is traced by default
+
+        tracer.setTraced(player.getUniqueId(), true);
+        assertTrue(tracer.isActive());
+        for (Material material : List.of(Material.DIRT, Material.DIRT, Material.DIAMOND)) {
+            PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), new ItemStack(material)));
+            server.getPluginManager().callEvent(event);
+        }
+        assertEquals(3, tracer.getRing().getRecorded());
+
+        records = new long[tracer.getRing().capacity() * TraceRing.FIELDS];
+        assertEquals(3, tracer.getRing().snapshot(records));
+        int blocked = DecisionTrace.BLOCKED | DecisionTrace.DROPS_DISABLED | DecisionTrace.ALLOWLISTING | DecisionTrace.WARNING_ENABLED;
+        assertEquals(blocked | DecisionTrace.ON_COOLDOWN, (int) records[TraceRing.PATH]); // Warned by the untraced drop
+        assertEquals(blocked | DecisionTrace.ON_COOLDOWN, (int) records[TraceRing.FIELDS + TraceRing.PATH]);
+        assertEquals(DecisionTrace.ALLOWED | DecisionTrace.DROPS_DISABLED | DecisionTrace.ALLOWLISTING | DecisionTrace.ALLOWLIST_HIT, (int) records[2 * TraceRing.FIELDS + TraceRing.PATH]);
+        assertEquals("blocked [drops-disabled, allowlisting, warning-enabled, on-cooldown]", DecisionTrace.describe((int) records[TraceRing.PATH]));
+
+        File file = new File(plugin.getDataFolder(), "traces/trace-test.log");
+        assertEquals(3, tracer.dump(file.toPath(), Collections.singletonMap(player.getUniqueId(), player.getName()), Collections.emptyMap()));
+        List<String> lines = Files.readAllLines(file.toPath());
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(2).contains(player.getName() + " dropped 1x DIAMOND in " + player.getWorld().getUID()));
+        assertTrue(lines.get(2).endsWith(": allowed [drops-disabled, allowlisting, allowlist-hit]"));
+
+        tracer.disable();
+        assertFalse(tracer.isActive());
+        tracer.setSampleRate(1);
+        server.getPluginManager().callEvent(new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), item)));
+        assertEquals(4, tracer.getRing().getRecorded());
+        tracer.disable();
+    }
+
+    @Test
+    @DisplayName("Verify that blocked drops are written to the audit log and can be queried")
+    void testAuditLog() throws IOException {
+        AuditRing ring = new AuditRing(2);
+        assertTrue(ring.offer(1, player.getUniqueId(), player.getName(), "world", 0, 0, 0, Material.DIRT, 1));
+        assertTrue(ring.offer(2, player.getUniqueId(), player.getName(), "world", 0, 0, 0, Material.STONE, 1));
+        assertFalse(ring.offer(3, player.getUniqueId(), player.getName(), "world", 0, 0, 0, Material.SAND, 1));
+        assertEquals(1, ring.getDropped());
+
+        AuditRecord record = new AuditRecord();
+        assertTrue(ring.poll(record));
+        assertEquals(Material.DIRT, record.getMaterial());
+        assertTrue(ring.poll(record));
+        assertFalse(ring.poll(record));
+
+        plugin.getConfig().set("disable-item-drops", true);
+        plugin.getConfig().set("audit-log.enabled", true);
+        plugin.reloadPolicy();
+        AuditLog audit = plugin.getAuditLog();
+        assertNotNull(audit);
+
+        for (Material material : List.of(Material.DIRT, Material.DIAMOND, Material.STICK)) {
+            PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), new ItemStack(material, 2)));
+            server.getPluginManager().callEvent(event);
+            assertTrue(event.isCancelled());
+        }
+
+        // Names are escaped, so an entry stays on one line
+        PlayerMock odd = server.addPlayer("Odd\"Name\n");
+        PlayerDropItemEvent oddEvent = new PlayerDropItemEvent(odd, odd.getWorld().dropItem(odd.getLocation(), new ItemStack(Material.DIRT)));
+        server.getPluginManager().callEvent(oddEvent);
+        assertTrue(oddEvent.isCancelled());
+
+        // Disabling the audit log writes the records that are still waiting
+        plugin.getConfig().set("audit-log.enabled", false);
+        plugin.reloadPolicy();
+        assertNull(plugin.getAuditLog());
+        assertEquals(4, audit.getWritten());
+
+        List<String> oddEntries = AuditLog.query(audit.getDirectory(), odd.getName(), 10);
+        assertEquals(1, oddEntries.size());
+        assertEquals(odd.getName(), AuditLog.field(oddEntries.get(0), "player"));
+        assertEquals(odd.getUniqueId().toString(), AuditLog.field(oddEntries.get(0), "uuid"));
+
+        List<String> entries = AuditLog.query(audit.getDirectory(), player.getName(), 2);
+        assertEquals(2, entries.size());
+        assertEquals("DIAMOND", AuditLog.field(entries.get(0), "material"));
+        assertEquals("STICK", AuditLog.field(entries.get(1), "material"));
+        assertEquals("2", AuditLog.field(entries.get(1), "amount"));
+        assertEquals(player.getWorld().getName(), AuditLog.field(entries.get(1), "world"));
+        assertTrue(AuditLog.query(audit.getDirectory(), "nobody", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Verify that drops over the rate limit are cancelled and refilled over time")
+    void testRateLimit() {
+        plugin.getConfig().set("disable-item-drops", false);
+        plugin.getConfig().set("rate-limit.enabled", true);
+        plugin.getConfig().set("rate-limit.drops", 3);
+        plugin.getConfig().set("rate-limit.window", 60);
+        plugin.reloadPolicy();
+        assertTrue(plugin.getPolicy().isRateLimited());
+
+        ItemStack item = new ItemStack(Material.DIRT);
+        for (int i = 0; i < 5; i++) {
+            PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), item));
+            server.getPluginManager().callEvent(event);
+            assertEquals(i >= 3, event.isCancelled(), "Drop " + i);
+        }
+        assertEquals(2, plugin.getMetrics().getRateLimited());
+
+        // Tokens are refilled lazily from the elapsed time, up to the burst size
+        RateLimiter limiter = new RateLimiter();
+        UUID id = player.getUniqueId();
+        assertTrue(limiter.tryAcquire(id, 0, 10, 20));
+        assertTrue(limiter.tryAcquire(id, 0, 10, 20));
+        assertFalse(limiter.tryAcquire(id, 5, 10, 20));
+        assertTrue(limiter.tryAcquire(id, 10, 10, 20));
+        assertFalse(limiter.tryAcquire(id, 10, 10, 20));
+        assertTrue(limiter.tryAcquire(id, 1000, 10, 20));
+        assertTrue(limiter.tryAcquire(id, 1000, 10, 20));
+        assertFalse(limiter.tryAcquire(id, 1000, 10, 20));
+    }
+
+    @Test
+    @DisplayName("Verify that drops are blocked once a chunk holds too many items")
+    void testChunkItemLimit() {
+        plugin.getConfig().set("disable-item-drops", false);
+        plugin.getConfig().set("chunk-item-limit", 3);
+        plugin.reloadPolicy();
+
+        ChunkItemCounter counter = plugin.getChunkItems();
+        UUID world = player.getWorld().getUID();
+        Location location = player.getLocation();
+        int chunkX = location.getBlockX() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+        ItemStack stack = new ItemStack(Material.DIRT);
+        Item item = player.getWorld().dropItem(location, stack);
+        Item other = player.getWorld().dropItem(location, stack);
+
+        counter.set(world, chunkX, chunkZ, 3);
+        PlayerDropItemEvent event = new PlayerDropItemEvent(player, item);
+        server.getPluginManager().callEvent(event);
+        assertTrue(event.isCancelled());
+        assertEquals(1, plugin.getMetrics().getChunkLimited());
+
+        // The counts follow the item entity events
+        counter.set(world, chunkX, chunkZ, 3);
+        server.getPluginManager().callEvent(new ItemDespawnEvent(item, location));
+        assertEquals(2, counter.get(world, chunkX, chunkZ));
+        server.getPluginManager().callEvent(new ItemSpawnEvent(item));
+        assertEquals(3, counter.get(world, chunkX, chunkZ));
+        server.getPluginManager().callEvent(new ItemMergeEvent(item, item));
+        assertEquals(2, counter.get(world, chunkX, chunkZ));
+
+        event = new PlayerDropItemEvent(player, other);
+        server.getPluginManager().callEvent(event);
+        assertFalse(event.isCancelled());
+        assertEquals(0, counter.get(world, chunkX + 1, chunkZ));
+
+        // Disabling the limit stops tracking
+        plugin.getConfig().set("chunk-item-limit", 0);
+        plugin.reloadPolicy();
+        assertEquals(0, counter.size());
+    }
+
+    @Test
+    @DisplayName("Verify that allowed drops are merged with similar stacks dropped nearby")
+    void testDropCompaction() {
+        plugin.getConfig().set("disable-item-drops", false);
+        plugin.getConfig().set("drop-compaction.enabled", true);
+        plugin.reloadPolicy();
+        assertTrue(plugin.getPolicy().isDropCompaction());
+
+        Location location = player.getLocation();
+        Item first = player.getWorld().dropItem(location, new ItemStack(Material.DIRT, 5));
+        Item second = player.getWorld().dropItem(location, new ItemStack(Material.DIRT, 3));
+        Item other = player.getWorld().dropItem(location, new ItemStack(Material.STONE, 1));
+        Item far = player.getWorld().dropItem(location.clone().add(5, 0, 0), new ItemStack(Material.DIRT, 1));
+
+        server.getPluginManager().callEvent(new PlayerDropItemEvent(player, first));
+        assertEquals(1, plugin.getRecentDrops().size());
+
+        // A similar stack nearby is absorbed by the new drop
+        PlayerDropItemEvent event = new PlayerDropItemEvent(player, second);
+        server.getPluginManager().callEvent(event);
+        assertFalse(event.isCancelled());
+        assertFalse(first.isValid());
+        assertEquals(8, second.getItemStack().getAmount());
+        assertEquals(1, plugin.getMetrics().getCompacted());
+
+        // Other materials and stacks out of range are not merged
+        server.getPluginManager().callEvent(new PlayerDropItemEvent(player, other));
+        server.getPluginManager().callEvent(new PlayerDropItemEvent(player, far));
+        assertTrue(second.isValid());
+        assertEquals(1, far.getItemStack().getAmount());
+        assertEquals(1, plugin.getMetrics().getCompacted());
+
+        // A drop cancelled by another plugin does not absorb the nearby stack
+        Listener canceller = new Listener() {
+            @EventHandler(priority = EventPriority.HIGHEST)
+            public void onPlayerItemDrop(PlayerDropItemEvent e) {
+                e.setCancelled(true);
             }
-            testGivenCombination(bitmask, DROPPABLE_MATERIALS.size(), false);
+        };
+        server.getPluginManager().registerEvents(canceller, plugin);
+        Item third = player.getWorld().dropItem(location, new ItemStack(Material.DIRT, 2));
+        event = new PlayerDropItemEvent(player, third);
+        server.getPluginManager().callEvent(event);
+        HandlerList.unregisterAll(canceller);
+        assertTrue(event.isCancelled());
+        assertTrue(second.isValid());
+        assertEquals(8, second.getItemStack().getAmount());
+        assertEquals(2, third.getItemStack().getAmount());
+        assertEquals(1, plugin.getMetrics().getCompacted());
+
+        // Chunks whose recent drops are all gone are forgotten
+        UUID world = player.getWorld().getUID();
+        long key = ChunkKeys.ofBlock(location.getBlockX(), location.getBlockZ());
+        assertFalse(plugin.getRecentDrops().purge(world, key));
+        second.remove();
+        other.remove();
+        far.remove();
+        assertTrue(plugin.getRecentDrops().purge(world, key));
+    }
+
+    @Test
+    @DisplayName("Verify that drop counters per player are persisted across restarts")
+    void testPlayerStats() throws IOException {
+        plugin.getConfig().set("disable-item-drops", true);
+        plugin.getConfig().set("warn-player-on-drop", true);
+        plugin.getConfig().set("item-allowlisting", true);
+        plugin.getConfig().set("item-allowlist", List.of(Material.DIAMOND.name()));
+        plugin.getConfig().set("player-stats", true);
+        plugin.reloadPolicy();
+
+        PlayerStatsStore store = plugin.getPlayerStats();
+        assertNotNull(store);
+        for (Material material : List.of(Material.DIRT, Material.DIRT, Material.DIAMOND)) {
+            server.getPluginManager().callEvent(new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), new ItemStack(material))));
+        }
+
+        PlayerStats stats = store.get(player.getUniqueId());
+        assertNotNull(stats);
+        assertEquals(new PlayerStats(3, 2, 1, stats.lastAttempt()), stats);
+        assertTrue(stats.lastAttempt() > 0);
+
+        // Disabling the statistics closes the file, the counters are read back when it is opened again
+        plugin.getConfig().set("player-stats", false);
+        plugin.reloadPolicy();
+        assertNull(plugin.getPlayerStats());
+
+        PlayerStatsStore reopened = new PlayerStatsStore(store.getFile());
+        reopened.open();
+        assertEquals(stats, reopened.get(player.getUniqueId()));
+
+        // The file grows when more players than its initial capacity drop items
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            reopened.record(id, i % 2 == 0, false, i);
+        }
+        reopened.close();
+
+        reopened = new PlayerStatsStore(store.getFile());
+        reopened.open();
+        assertEquals(2501, reopened.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(new PlayerStats(1, i % 2 == 0 ? 1 : 0, 0, i), reopened.get(ids.get(i)));
         }
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Verify that the drop settings are distributed over the network with full snapshots and deltas")
+    void testNetworkPolicy() throws IOException {
+        List<LoopbackTransport> network = new ArrayList<>();
+        LoopbackTransport publisherTransport = new LoopbackTransport(network);
+        PolicySync publisher = new PolicySync(NetworkRole.PUBLISH, publisherTransport, plugin.getTaskScheduler(), plugin.getLogger(), settings -> {
+        });
+        publisher.start();
+
+        plugin.setPolicyTransport(() -> new LoopbackTransport(network));
+        plugin.getConfig().set("network.enabled", true);
+        plugin.getConfig().set("network.role", "receive");
+        plugin.reloadPolicy();
+        PolicySync receiver = plugin.getPolicySync();
+        assertNotNull(receiver);
+        assertEquals(NetworkRole.RECEIVE, receiver.getRole());
+
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("disable-item-drops", true);
+        config.set("item-allowlisting", true);
+        config.set("item-allowlist", List.of("DIAMOND"));
+        publisher.publish(PolicyTree.snapshot(config, key -> true));
+        byte[] full = publisherTransport.lastMessage;
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+        assertEquals(Set.of(Material.DIAMOND), plugin.getPolicy().getAllowlist());
+        assertEquals(publisher.getVersion(), receiver.getVersion());
+        assertEquals(NetworkRole.RECEIVE, plugin.getPolicy().getNetworkRole()); // Local settings are kept
+
+        // A change of the allowlist only is sent as a delta
+        config.set("item-allowlist", List.of("DIAMOND", "STICK"));
+        publisher.publish(PolicyTree.snapshot(config, key -> true));
+        byte[] delta = publisherTransport.lastMessage;
+        assertTrue(PolicyCodec.decode(delta).isDelta());
+        assertTrue(delta.length < full.length);
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+        assertEquals(Set.of(Material.DIAMOND, Material.STICK), plugin.getPolicy().getAllowlist());
+
+        // Older snapshots are ignored, deltas that don't match the applied version are rejected
+        publisherTransport.send(full);
+        publisherTransport.send(delta);
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+        assertEquals(Set.of(Material.DIAMOND, Material.STICK), plugin.getPolicy().getAllowlist());
+        assertEquals(0, receiver.getRejected());
+
+        plugin.reloadPolicy(); // The local configuration applies until the next snapshot
+        assertTrue(plugin.getPolicy().getAllowlist().contains(Material.GOLD_BLOCK));
+        publisherTransport.send(delta);
+        server.getScheduler().waitAsyncTasksFinished();
+        assertEquals(1, receiver.getRejected());
+
+        // Other settings are sent as a full snapshot
+        config.set("disable-item-drops", false);
+        publisher.publish(PolicyTree.snapshot(config, key -> true));
+        assertFalse(PolicyCodec.decode(publisherTransport.lastMessage).isDelta());
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+        assertFalse(plugin.getPolicy().isDisableItemDrops());
+        assertEquals(6, receiver.getReceived());
+
+        // The local settings of an asynchronous reload are kept by the next snapshot
+        plugin.getConfig().set("player-stats", true);
+        plugin.saveConfig();
+        plugin.getConfig().set("player-stats", false);
+        plugin.reloadPolicyAsync(null);
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+        assertTrue(plugin.getPolicy().isPlayerStats());
+        config.set("disable-item-drops", true);
+        publisher.publish(PolicyTree.snapshot(config, key -> true));
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+        assertTrue(plugin.getPolicy().isDisableItemDrops());
+        assertTrue(plugin.getPolicy().isPlayerStats());
+
+        // A snapshot received while a reload is still reading the file does not discard the reload
+        PlayerMock admin = server.addPlayer();
+        plugin.getConfig().set("player-stats", false);
+        plugin.saveConfig();
+        plugin.getConfig().set("player-stats", true);
+        plugin.reloadPolicyAsync(admin);
+        config.set("disable-item-drops", false);
+        publisher.publish(PolicyTree.snapshot(config, key -> true));
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+        assertEquals("[DropStop] The configuration has been reloaded.", admin.nextMessage());
+        assertFalse(plugin.getPolicy().isPlayerStats());
+        assertTrue(plugin.getPolicy().getAllowlist().contains(Material.GOLD_BLOCK)); // The file applies until the next snapshot
+
+        config.set("disable-item-drops", true);
+        publisher.publish(PolicyTree.snapshot(config, key -> true));
+        server.getScheduler().waitAsyncTasksFinished();
+        server.getScheduler().performOneTick();
+        assertEquals(Set.of(Material.DIAMOND, Material.STICK), plugin.getPolicy().getAllowlist());
+        assertFalse(plugin.getPolicy().isPlayerStats());
+
+        publisher.stop();
+        plugin.getConfig().set("network.enabled", false);
+        plugin.reloadPolicy();
+        assertNull(plugin.getPolicySync());
+        assertTrue(network.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Verify that other plugins can decide drops through the API")
+    void testDropApi() {
+        DropStopApi api = server.getServicesManager().load(DropStopApi.class);
+        assertNotNull(api);
+        Plugin other = MockBukkit.createMockPlugin();
+        UUID world = player.getWorld().getUID();
+
+        plugin.getConfig().set("disable-item-drops", false);
+        plugin.reloadPolicy();
+        assertEquals(0, PlayerDropItemEvent.getHandlerList().getRegisteredListeners().length);
+
+        api.registerPredicate(other, (p, material, worldId) -> {
+            throw new IllegalStateException("Failing predicates are skipped");
+        });
+        api.registerPredicate(other, (p, material, worldId) -> material == Material.DIRT && worldId.equals(world) ? DropDecision.DENY : DropDecision.ABSTAIN);
+        api.registerPredicate(other, (p, material, worldId) -> material == Material.DIRT || material == Material.STICK ? DropDecision.ALLOW : DropDecision.ABSTAIN);
+        server.getScheduler().performOneTick(); // The drop listener is registered on the main thread
+        assertEquals(1, PlayerDropItemEvent.getHandlerList().getRegisteredListeners().length);
+
+        // The first predicate that doesn't abstain decides, otherwise the drop settings do
+        PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), new ItemStack(Material.DIRT)));
+        server.getPluginManager().callEvent(event);
+        assertTrue(event.isCancelled());
+        assertTrue(api.wouldBlock(player, new ItemStack(Material.DIRT)));
+        assertFalse(api.wouldBlock(player, new ItemStack(Material.STONE)));
+
+        plugin.getConfig().set("disable-item-drops", true);
+        plugin.reloadPolicy();
+        assertTrue(api.wouldBlock(player, new ItemStack(Material.STONE)));
+        assertFalse(api.wouldBlock(player, new ItemStack(Material.STICK)));
+        assertEquals(1, plugin.getMetrics().getTotal().getBlocked()); // Queries are not counted
+
+        // The predicates of a plugin are removed when it is disabled
+        server.getPluginManager().disablePlugin(other);
+        assertTrue(plugin.getDropPredicates().isEmpty());
+        assertTrue(api.wouldBlock(player, new ItemStack(Material.STICK)));
+    }
+
+    @Test
+    @DisplayName("Verify that only the listeners of enabled features are registered")
+    void testFeatureListeners() {
+        assertTrue(plugin.getPolicy().isDropChecked());
+        assertEquals(1, PlayerDropItemEvent.getHandlerList().getRegisteredListeners().length);
+        assertEquals(0, ItemSpawnEvent.getHandlerList().getRegisteredListeners().length);
+
+        // Nothing can block a drop, so drop events don't reach the plugin
+        plugin.getConfig().set("disable-item-drops", false);
+        plugin.reloadPolicy();
+        assertFalse(plugin.getPolicy().isDropChecked());
+        assertEquals(0, PlayerDropItemEvent.getHandlerList().getRegisteredListeners().length);
+        PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), new ItemStack(Material.DIRT)));
+        server.getPluginManager().callEvent(event);
+        assertFalse(event.isCancelled());
+        assertEquals(0, plugin.getMetrics().getLatency().count());
+
+        // A world rule that disables drops needs the drop listener again
+        plugin.getConfig().set("worlds." + player.getWorld().getName() + ".disable-item-drops", true);
+        plugin.getConfig().set("chunk-item-limit", 10);
+        plugin.getConfig().set("drop-compaction.enabled", true);
+        plugin.reloadPolicy();
+        assertEquals(2, PlayerDropItemEvent.getHandlerList().getRegisteredListeners().length);
+        assertEquals(1, ItemSpawnEvent.getHandlerList().getRegisteredListeners().length);
+
+        plugin.getConfig().set("worlds", null);
+        plugin.getConfig().set("chunk-item-limit", 0);
+        plugin.reloadPolicy();
+        assertEquals(1, PlayerDropItemEvent.getHandlerList().getRegisteredListeners().length);
+        assertEquals(0, ItemSpawnEvent.getHandlerList().getRegisteredListeners().length);
+    }
+
+    @Test
+    @DisplayName("Verify that drops are blocked while the server is lagging, without flapping")
+    void testLagProtection() {
+        plugin.getConfig().set("disable-item-drops", false);
+        plugin.getConfig().set("item-allowlisting", true);
+        plugin.getConfig().set("item-allowlist", List.of("DIAMOND"));
+        plugin.getConfig().set("lag-protection.enabled", true);
+        plugin.reloadPolicy();
+
+        LagMonitor lag = plugin.getLagMonitor();
+        lag.sample(30.0, 20.0);
+        assertFalse(lag.isLagging());
+        PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), new ItemStack(Material.DIRT)));
+        server.getPluginManager().callEvent(event);
+        assertFalse(event.isCancelled());
+
+        // Blocking starts above the upper threshold and the allowlist still applies
+        lag.sample(50.0, 20.0);
+        assertTrue(lag.isLagging());
+        event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), new ItemStack(Material.DIRT)));
+        server.getPluginManager().callEvent(event);
+        assertTrue(event.isCancelled());
+        event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), new ItemStack(Material.DIAMOND)));
+        server.getPluginManager().callEvent(event);
+        assertFalse(event.isCancelled());
+        assertEquals(1, plugin.getMetrics().getLagBlocked());
+
+        // Blocking only stops once both values are back below the lower thresholds
+        lag.sample(40.0, 20.0);
+        assertTrue(lag.isLagging());
+        lag.sample(30.0, 19.0);
+        assertTrue(lag.isLagging());
+        lag.sample(30.0, 20.0);
+        assertFalse(lag.isLagging());
+
+        // Without a tick time, the TPS alone decides
+        lag.sample(Double.NaN, 15.0);
+        assertTrue(lag.isLagging());
+        lag.sample(Double.NaN, 20.0);
+        assertFalse(lag.isLagging());
+        assertEquals(4, lag.getTransitions());
+
+        plugin.getConfig().set("lag-protection.enabled", false);
+        lag.sample(50.0, 20.0);
+        plugin.reloadPolicy();
+        assertFalse(lag.isLagging());
+    }
+
+    @Test
+    @DisplayName("Verify that blocked, allowed and warned drops are counted")
+    void testDropMetrics() {
+        plugin.getConfig().set("disable-item-drops", true);
+        plugin.getConfig().set("warn-player-on-drop", true);
+        plugin.getConfig().set("item-allowlisting", true);
+        plugin.getConfig().set("item-allowlist", List.of(Material.DIAMOND.name()));
+        plugin.reloadPolicy();
+
+        for (Material material : List.of(Material.DIRT, Material.DIRT, Material.DIAMOND)) {
+            ItemStack item = new ItemStack(material);
+            PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), item));
+            server.getPluginManager().callEvent(event);
+        }
+
+        assertEquals(2, plugin.getMetrics().getTotal().getBlocked());
+        assertEquals(1, plugin.getMetrics().getTotal().getAllowed());
+        assertEquals(1, plugin.getMetrics().getTotal().getWarned()); // The second warning is on cooldown
+        assertEquals(2, plugin.getMetrics().getMaterial(Material.DIRT).getBlocked());
+        assertEquals(2, plugin.getMetrics().getWorlds().get(player.getWorld().getUID()).getBlocked());
+        assertEquals(3, plugin.getMetrics().getLatency().count());
+        assertArrayEquals(new Material[]{Material.DIRT}, plugin.getMetrics().topBlockedMaterials(5));
+    }
+
+    @Test
+    @DisplayName("Verify that world and region rules override the global rule")
+    void testWorldAndRegionRules() {
+        String world = player.getWorld().getName();
+        plugin.getConfig().set("disable-item-drops", true);
+        plugin.getConfig().set("worlds." + world + ".disable-item-drops", false);
+        plugin.getConfig().set("regions.spawn.world", world);
+        plugin.getConfig().set("regions.spawn.min", List.of(-16, -16));
+        plugin.getConfig().set("regions.spawn.max", List.of(15, 15));
+        plugin.getConfig().set("regions.spawn.disable-item-drops", true);
+        plugin.getConfig().set("regions.arena.world", world);
+        plugin.getConfig().set("regions.arena.min", List.of(0, 0, 0));
+        plugin.getConfig().set("regions.arena.max", List.of(7, 255, 7));
+        plugin.getConfig().set("regions.arena.priority", 5);
+        plugin.getConfig().set("regions.arena.disable-item-drops", true);
+        plugin.getConfig().set("regions.arena.item-allowlisting", true);
+        plugin.getConfig().set("regions.arena.item-allowlist", List.of(Material.DIAMOND.name()));
+        plugin.reloadPolicy();
+
+        WorldPolicy worldPolicy = plugin.getPolicy().getWorld(world);
+        assertNotNull(worldPolicy);
+        assertFalse(worldPolicy.ruleAt(100, 64, 100).blocks(Material.DIRT)); // World rule
+        assertTrue(worldPolicy.ruleAt(-10, 64, -10).blocks(Material.DIAMOND)); // Spawn region
+        assertTrue(worldPolicy.ruleAt(3, 64, 3).blocks(Material.DIRT)); // Arena region wins over spawn
+        assertFalse(worldPolicy.ruleAt(3, 64, 3).blocks(Material.DIAMOND));
+        assertTrue(plugin.getPolicy().blocks(Material.DIRT)); // Global rule
+
+        // Removing a region only re-indexes its own chunks
+        plugin.getConfig().set("regions.arena", null);
+        plugin.reloadPolicy();
+        WorldPolicy updated = plugin.getPolicy().getWorld(world);
+        assertNotNull(updated);
+        assertNotNull(updated.getRegions());
+        assertEquals(1, updated.getRegions().size());
+        assertEquals(4, updated.getRegions().indexedChunks());
+        assertTrue(updated.ruleAt(3, 64, 3).blocks(Material.DIAMOND));
+    }
+
+    @Test
+    @DisplayName("Verify that players with a bypass permission can drop items")
+    void testBypassPermission() {
+        plugin.getConfig().set("disable-item-drops", true);
+        plugin.reloadPolicy();
+
+        player.addAttachment(plugin, "dropstop.bypass.diamond", true);
+        plugin.refreshBypassCache();
+
+        PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), new ItemStack(Material.DIAMOND)));
+        server.getPluginManager().callEvent(event);
+        assertFalse(event.isCancelled());
+
+        event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), new ItemStack(Material.DIRT)));
+        server.getPluginManager().callEvent(event);
+        assertTrue(event.isCancelled());
+
+        player.addAttachment(plugin, "dropstop.bypass", true);
+        plugin.refreshBypassCache();
+
+        event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), new ItemStack(Material.DIRT)));
+        server.getPluginManager().callEvent(event);
+        assertFalse(event.isCancelled());
+
+        player.disconnect();
+        assertEquals(0, plugin.getBypassCache().size());
+    }
+
+    @Test
+    @DisplayName("Verify that an item thrown out of an open inventory is only checked once")
+    void testInventoryThrowCountedOnce() {
+        plugin.getConfig().set("disable-item-drops", false);
+        plugin.getConfig().set("rate-limit.enabled", true);
+        plugin.getConfig().set("rate-limit.drops", 2);
+        plugin.getConfig().set("rate-limit.window", 60);
+        plugin.reloadPolicy();
+
+        // The server fires a click and then a drop event for each item thrown out of the inventory
+        for (int i = 0; i < 2; i++) {
+            player.setItemOnCursor(new ItemStack(Material.DIRT));
+            InventoryClickEvent click = new InventoryClickEvent(player.getOpenInventory(), InventoryType.SlotType.OUTSIDE, InventoryView.OUTSIDE, ClickType.LEFT, InventoryAction.DROP_ALL_CURSOR);
+            server.getPluginManager().callEvent(click);
+            assertFalse(click.isCancelled());
+
+            PlayerDropItemEvent drop = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), new ItemStack(Material.DIRT)));
+            server.getPluginManager().callEvent(drop);
+            assertFalse(drop.isCancelled(), "Throw " + i); // Each throw takes a single drop from the rate limit
+        }
+
+        assertEquals(2, plugin.getMetrics().getTotal().getAllowed());
+        assertEquals(0, plugin.getMetrics().getRateLimited());
+    }
+
+    @Test
+    @DisplayName("Verify that item rules match on item attributes")
+    void testItemRules() {
+        plugin.getConfig().set("disable-item-drops", false);
+        plugin.getConfig().set("item-rules.quest.action", "deny");
+        plugin.getConfig().set("item-rules.quest.materials", List.of(Material.DIAMOND.name()));
+        plugin.getConfig().set("item-rules.quest.display-name", "&cQuest Diamond");
+        plugin.reloadPolicy();
+
+        ItemStack quest = new ItemStack(Material.DIAMOND);
+        ItemMeta meta = quest.getItemMeta();
+        meta.setDisplayName(String.valueOf((char) 167) + "cQuest Diamond");
+        quest.setItemMeta(meta);
+
+        for (int i = 0; i < 3; i++) {
+            PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), quest.clone()));
+            server.getPluginManager().callEvent(event);
+            assertTrue(event.isCancelled());
+        }
+
+        PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), new ItemStack(Material.DIAMOND)));
+        server.getPluginManager().callEvent(event);
+        assertFalse(event.isCancelled());
+
+        ItemMatcher matcher = plugin.getPolicy().getItemMatcher();
+        assertNotNull(matcher);
+        assertEquals(ItemMatcher.Result.DENY, matcher.match(quest));
+        assertEquals(ItemMatcher.Result.ABSTAIN, matcher.match(new ItemStack(Material.DIAMOND)));
+        assertEquals(ItemMatcher.Result.ABSTAIN, matcher.match(new ItemStack(Material.STICK)));
     }
 
     @Test
     @DisplayName("Verify that null items cannot be dropped")
     void testNullItemDrop() {
         plugin.getConfig().set("disable-item-drops", true);
+        plugin.reloadPolicy();
         player.getInventory().setItemInMainHand(null);
 
         assertThrows(NullPointerException.class, () -> {
@@ -396,15 +1224,18 @@ public class TestPlugin {
         // Otherwise, null will be treated as a string.
         plugin.getConfig().set("warning-message", "");
 
+        // The invalid message is rejected when the policy is compiled, the previous policy is kept
+        assertThrows(NullPointerException.class, () -> plugin.reloadPolicy());
+
         for (Material material : DROPPABLE_MATERIALS) {
             ItemStack item = new ItemStack(material);
             player.getInventory().setItemInMainHand(item);
 
-            assertThrows(NullPointerException.class, () -> {
-                PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), item));
-                server.getPluginManager().callEvent(event);
-            });
+            PlayerDropItemEvent event = new PlayerDropItemEvent(player, player.getWorld().dropItem(player.getLocation(), item));
+            server.getPluginManager().callEvent(event);
 
+            assertTrue(event.isCancelled());
+            server.getScheduler().performOneTick();
             assertNull(player.nextMessage());
         }
     }
@@ -413,6 +1244,7 @@ public class TestPlugin {
     @DisplayName("Verify that items cannot be dropped by null player")
     void testNullPlayerDrop() {
         plugin.getConfig().set("disable-item-drops", true);
+        plugin.reloadPolicy();
         player = null;
 
         for (Material material : DROPPABLE_MATERIALS) {
@@ -431,6 +1263,7 @@ public class TestPlugin {
     void testWarningMessageTimeout() throws InterruptedException {
         plugin.getConfig().set("disable-item-drops", true);
         plugin.getConfig().set("warn-player-on-drop", true);
+        plugin.reloadPolicy();
 
         // Test for timeouts from 1 to 15 seconds
         for (int timeout = 1; timeout <= 15; timeout++) {
@@ -482,4 +1315,38 @@ public class TestPlugin {
         LOGGER.info("Performance score of the plugin: {}", performanceRating.toUpperCase());
         assertTrue(ms <= 1000); // The average time should be less than 1 second
     }
+
+    /**
+     * In-process stand-in for the proxy, delivering each message to all other transports of the same network.
+     */
+    private static final class LoopbackTransport implements PolicyTransport {
+        private final List<LoopbackTransport> network;
+        private Consumer<byte[]> receiver;
+        private byte[] lastMessage;
+
+        private LoopbackTransport(List<LoopbackTransport> network) {
+            this.network = network;
+        }
+
+        @Override
+        public void open(Consumer<byte[]> receiver) {
+            this.receiver = receiver;
+            network.add(this);
+        }
+
+        @Override
+        public void send(byte[] message) {
+            lastMessage = message;
+            for (LoopbackTransport transport : List.copyOf(network)) {
+                if (transport != this) {
+                    transport.receiver.accept(message);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            network.remove(this);
+        }
+    }
 }